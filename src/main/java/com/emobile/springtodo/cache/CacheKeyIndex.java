@@ -0,0 +1,84 @@
+package com.emobile.springtodo.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Redis sorted set of the keys each owner has in a cache, scored by the time they were written, so that one
+ * owner's entries can be evicted without touching anybody else's. The owner is the part of the key before the
+ * first {@value #OWNER_SEPARATOR}.
+ * <p>
+ * The index expires {@code ttl} after its last write, so it never outlives the entries it points to.
+ * With {@code maxKeysPerOwner} set, registering a key beyond the cap hands back the owner's oldest keys
+ * for the cache to evict.
+ */
+public class CacheKeyIndex {
+
+    public static final char OWNER_SEPARATOR = ':';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final int maxKeysPerOwner;
+
+    public CacheKeyIndex(StringRedisTemplate redisTemplate, String keyPrefix, Duration ttl, int maxKeysPerOwner) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+        this.maxKeysPerOwner = maxKeysPerOwner;
+    }
+
+    /**
+     * Registers {@code key} and returns the keys pushed out of the owner's cap, which the caller must evict.
+     */
+    public Set<String> register(String key) {
+        int separator = key.indexOf(OWNER_SEPARATOR);
+        if (separator <= 0) {
+            return Set.of();
+        }
+        String indexKey = indexKey(key.substring(0, separator));
+        ZSetOperations<String, String> index = redisTemplate.opsForZSet();
+        index.add(indexKey, key, System.currentTimeMillis());
+        if (!ttl.isZero()) {
+            redisTemplate.expire(indexKey, ttl);
+        }
+        if (maxKeysPerOwner <= 0) {
+            return Set.of();
+        }
+
+        Long size = index.zCard(indexKey);
+        if (size == null || size <= maxKeysPerOwner) {
+            return Set.of();
+        }
+        Set<ZSetOperations.TypedTuple<String>> overflow = index.popMin(indexKey, size - maxKeysPerOwner);
+        if (overflow == null) {
+            return Set.of();
+        }
+        return overflow.stream()
+                .map(ZSetOperations.TypedTuple::getValue)
+                .collect(Collectors.toSet());
+    }
+
+    public Set<String> keys(String owner) {
+        Set<String> keys = redisTemplate.opsForZSet().range(indexKey(owner), 0, -1);
+        return keys == null ? Set.of() : keys;
+    }
+
+    public Set<String> drain(String owner) {
+        String indexKey = indexKey(owner);
+        Set<String> keys = redisTemplate.opsForZSet().range(indexKey, 0, -1);
+        if (keys == null || keys.isEmpty()) {
+            return Set.of();
+        }
+        redisTemplate.opsForZSet().remove(indexKey, keys.toArray());
+        return keys;
+    }
+
+    private String indexKey(String owner) {
+        return keyPrefix + owner;
+    }
+}
@@ -0,0 +1,80 @@
+package com.emobile.springtodo.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived Redis lock that lets one node load a missing entry while the others wait for it to show up in L2.
+ * The lock expires after {@code lockTtl} so a node dying mid-load cannot block the key, and waiters give up after
+ * {@code lockWait} and load the entry themselves.
+ */
+public class CacheLoadLock {
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration lockTtl;
+    private final Duration lockWait;
+    private final Duration pollInterval;
+
+    public CacheLoadLock(StringRedisTemplate redisTemplate,
+                         String keyPrefix,
+                         Duration lockTtl,
+                         Duration lockWait,
+                         Duration pollInterval) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.lockTtl = lockTtl;
+        this.lockWait = lockWait;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Returns the token to release the lock with, or {@code null} when another node holds it.
+     */
+    public String tryAcquire(String key) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(keyPrefix + key, token, lockTtl);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public void release(String key, String token) {
+        redisTemplate.execute(RELEASE, List.of(keyPrefix + key), token);
+    }
+
+    /**
+     * Polls {@code probe} until it finds the value loaded by the holder of {@code key}'s lock; {@code null} once the
+     * wait runs out, or as soon as the lock is released without a value showing up, as when the loader found nothing
+     * and null values are not cached.
+     */
+    public Cache.ValueWrapper await(String key, Supplier<Cache.ValueWrapper> probe) {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Cache.ValueWrapper value = probe.get();
+            if (value != null) {
+                return value;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(keyPrefix + key))) {
+                // the holder may have stored the value just before releasing
+                return probe.get();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package com.emobile.springtodo.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Periodically counts the Redis keys of every cache configured under {@code cache.caches} with {@code SCAN}
+ * and estimates their memory from {@code MEMORY USAGE} of {@code sampleSize} keys drawn uniformly from the scan.
+ * {@code SCAN} never blocks the server the way {@code KEYS} does, and sampling keeps the number of
+ * {@code MEMORY USAGE} calls bounded. The latest sample of each cache is published as gauges tagged {@code tier=l2}.
+ * <p>
+ * Redis is shared, so only the node holding the {@code cache.sampler.leader-key} lease samples it; the lease lasts
+ * two intervals and its holder renews it on every run. The other nodes publish no value, which keeps the gauges
+ * from being counted once per node.
+ */
+@Slf4j
+public class CacheMemorySampler implements MeterBinder {
+
+    private static final int SCAN_BATCH = 1000;
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheProperties properties;
+    private final RandomGenerator random;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, CacheMemoryStatistics> latest = new ConcurrentHashMap<>();
+
+    public CacheMemorySampler(StringRedisTemplate redisTemplate, CacheProperties properties) {
+        this(redisTemplate, properties, ThreadLocalRandom.current());
+    }
+
+    CacheMemorySampler(StringRedisTemplate redisTemplate, CacheProperties properties, RandomGenerator random) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.random = random;
+    }
+
+    @Scheduled(initialDelayString = "${cache.sampler.interval:1m}", fixedDelayString = "${cache.sampler.interval:1m}")
+    public void sample() {
+        if (!holdLease()) {
+            latest.clear();
+            return;
+        }
+        for (String cacheName : properties.getCaches().keySet()) {
+            try {
+                CacheMemoryStatistics statistics = sample(cacheName);
+                latest.put(cacheName, statistics);
+                report(cacheName, statistics);
+            } catch (RuntimeException e) {
+                log.warn("Failed to sample Redis memory of cache {}", cacheName, e);
+            }
+        }
+    }
+
+    public Map<String, CacheMemoryStatistics> statistics() {
+        return Map.copyOf(latest);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String cacheName : properties.getCaches().keySet()) {
+            Gauge.builder("cache.size", latest, stats -> keys(stats.get(cacheName)))
+                    .description("Redis keys of the cache at the last sample")
+                    .tags("cache", cacheName, "tier", "l2")
+                    .register(registry);
+            Gauge.builder("todo.cache.redis.memory", latest, stats -> estimatedBytes(stats.get(cacheName)))
+                    .description("Estimated Redis memory of the cache at the last sample")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags("cache", cacheName, "tier", "l2")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Takes the sampler lease when nobody holds it, or extends it when this node already does.
+     */
+    boolean holdLease() {
+        String leaderKey = properties.getSampler().getLeaderKey();
+        Duration lease = properties.getSampler().getInterval().multipliedBy(2);
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaderKey, nodeId, lease))) {
+            return true;
+        }
+        Long renewed = redisTemplate.execute(RENEW, List.of(leaderKey), nodeId, String.valueOf(lease.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    CacheMemoryStatistics sample(String cacheName) {
+        int sampleSize = properties.getSampler().getSampleSize();
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(properties.redisKeyPrefix(cacheName) + "*")
+                .count(SCAN_BATCH)
+                .build();
+
+        long keys = 0;
+        List<String> sample = new ArrayList<>(sampleSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                // reservoir sampling: every scanned key ends up in the sample with the same probability
+                if (sample.size() < sampleSize) {
+                    sample.add(key);
+                } else {
+                    long slot = random.nextLong(keys + 1);
+                    if (slot < sampleSize) {
+                        sample.set((int) slot, key);
+                    }
+                }
+                keys++;
+            }
+        }
+        if (sample.isEmpty()) {
+            return new CacheMemoryStatistics(keys, 0, 0);
+        }
+
+        long sampledBytes = 0;
+        for (String key : sample) {
+            Long bytes = redisTemplate.execute((RedisCallback<Long>) connection -> memoryUsage(connection, key));
+            sampledBytes += bytes == null ? 0 : bytes;
+        }
+        return new CacheMemoryStatistics(keys, sample.size(), sampledBytes * keys / sample.size());
+    }
+
+    private void report(String cacheName, CacheMemoryStatistics statistics) {
+        DataSize budget = properties.cache(cacheName).getMemoryBudget();
+        if (budget != null && statistics.estimatedBytes() > budget.toBytes()) {
+            log.warn("Cache {} holds {} keys, about {} KB in Redis, over its budget of {} KB",
+                    cacheName, statistics.keys(), statistics.estimatedBytes() / 1024, budget.toKilobytes());
+            return;
+        }
+        log.info("Cache {} holds {} keys, about {} KB in Redis",
+                cacheName, statistics.keys(), statistics.estimatedBytes() / 1024);
+    }
+
+    private static double keys(CacheMemoryStatistics statistics) {
+        return statistics == null ? Double.NaN : statistics.keys();
+    }
+
+    private static double estimatedBytes(CacheMemoryStatistics statistics) {
+        return statistics == null ? Double.NaN : statistics.estimatedBytes();
+    }
+
+    private static Long memoryUsage(RedisConnection connection, String key) {
+        Object result = connection.execute("MEMORY",
+                "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8));
+        return result instanceof Long bytes ? bytes : null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.emobile.springtodo.cache;
+
+public record CacheMemoryStatistics(long keys, int sampledKeys, long estimatedBytes) {
+}
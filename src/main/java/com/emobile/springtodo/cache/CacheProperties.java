@@ -0,0 +1,108 @@
+package com.emobile.springtodo.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code cache.*} settings. Caches without an entry under {@code cache.caches} use the defaults of {@link Spec}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private String invalidationChannel = "todo-cache-invalidation";
+    private Duration changeMarkerTtl = Duration.ofDays(1);
+    private Set<String> indexedCaches = Set.of(TodoCacheKeys.PAGED_TODOS);
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+    private final L1 l1 = new L1();
+    private final Codec codec = new Codec();
+    private final Sampler sampler = new Sampler();
+    private final Load load = new Load();
+
+    public Spec cache(String name) {
+        return caches.getOrDefault(name, new Spec());
+    }
+
+    public boolean isIndexed(String name) {
+        return indexedCaches.contains(name) || cache(name).getMaxEntriesPerOwner() > 0;
+    }
+
+    /**
+     * Prefix of the Redis keys holding the entries of cache {@code name}, as built by {@code RedisCacheConfiguration}.
+     */
+    public String redisKeyPrefix(String name) {
+        return cache(name).getKeyPrefix() + name + "::";
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        /**
+         * Redis entry TTL; {@link Duration#ZERO} keeps entries until they are evicted.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        private String keyPrefix = "";
+        private boolean cacheNullValues = true;
+        /**
+         * Keeps at most this many entries per owner, dropping the oldest first; 0 means unlimited.
+         */
+        private int maxEntriesPerOwner;
+        /**
+         * Estimated Redis memory above which the sampler warns; unset means no budget.
+         */
+        private DataSize memoryBudget;
+    }
+
+    @Getter
+    @Setter
+    public static class L1 {
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Codec {
+        private String type = "binary";
+        private int compressionThreshold = 512;
+    }
+
+    @Getter
+    @Setter
+    public static class Load {
+        /**
+         * Also single-flights loads across nodes with a Redis lock; within a node they always are.
+         */
+        private boolean distributedLock;
+        private Duration lockTtl = Duration.ofSeconds(5);
+        /**
+         * How long a node waits for another node's load before running the loader itself.
+         */
+        private Duration lockWait = Duration.ofSeconds(1);
+        private Duration lockPollInterval = Duration.ofMillis(50);
+        /**
+         * XFetch beta; higher refreshes earlier, 0 disables early refresh.
+         */
+        private double earlyRefreshBeta = 1.0;
+    }
+
+    @Getter
+    @Setter
+    public static class Sampler {
+        private boolean enabled = true;
+        private Duration interval = Duration.ofMinutes(1);
+        private int sampleSize = 100;
+        /**
+         * Redis key of the lease that elects the one node sampling the shared Redis.
+         */
+        private String leaderKey = "cache-sampler:leader";
+    }
+}
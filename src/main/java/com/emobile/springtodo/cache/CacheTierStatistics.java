@@ -0,0 +1,4 @@
+package com.emobile.springtodo.cache;
+
+public record CacheTierStatistics(long l1Hits, long l1Misses, long l2Hits, long l2Misses) {
+}
@@ -0,0 +1,24 @@
+package com.emobile.springtodo.cache;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Atomic read-modify-write of a single L2 entry, which {@link org.springframework.cache.Cache} cannot express.
+ * An update sees {@code null} for a missing entry and for a cached null, and returns the new value, the value it
+ * was given to leave the entry alone, or {@code null} to drop the entry.
+ */
+interface L2EntryUpdater {
+
+    /**
+     * Applies {@code update}, running it again on the fresh value when another writer changed the entry in between;
+     * the entry keeps its TTL. An entry that keeps changing is dropped rather than left behind. Returns whether
+     * the entry changed.
+     */
+    boolean update(Object key, UnaryOperator<Object> update);
+
+    /**
+     * Applies {@code update} once, and only if the entry did not change while it ran; the entry's TTL starts over.
+     * Returns whether the entry changed.
+     */
+    boolean replace(Object key, UnaryOperator<Object> update);
+}
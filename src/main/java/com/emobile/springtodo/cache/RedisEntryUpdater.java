@@ -0,0 +1,147 @@
+package com.emobile.springtodo.cache;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link L2EntryUpdater} over the entries of one {@code RedisCache}. The entry is read raw, the update is applied
+ * to its decoded value, and the result is written by a Lua script only while the entry still hashes to what was
+ * read, so a concurrent write from any node makes the change fail instead of being overwritten. The script runs on
+ * the shared connection, unlike {@code WATCH}, which needs a dedicated one per change.
+ */
+class RedisEntryUpdater implements L2EntryUpdater {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private static final byte[] COMPARE_AND_SET = """
+            local current = redis.call('get', KEYS[1])
+            if (current and redis.sha1hex(current) or '') ~= ARGV[1] then
+              return 0
+            end
+            if ARGV[2] == 'delete' then
+              redis.call('del', KEYS[1])
+            elseif ARGV[2] == 'keepttl' then
+              redis.call('set', KEYS[1], ARGV[3], 'KEEPTTL')
+            elseif ARGV[2] == 'persist' then
+              redis.call('set', KEYS[1], ARGV[3])
+            else
+              redis.call('set', KEYS[1], ARGV[3], 'PX', ARGV[2])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * How {@code RedisCache} stores a cached null.
+     */
+    private static final byte[] NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+    private static final byte[] NO_VALUE = new byte[0];
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final RedisSerializationContext.SerializationPair<Object> values;
+    private final Duration ttl;
+
+    RedisEntryUpdater(StringRedisTemplate redisTemplate,
+                      String keyPrefix,
+                      RedisSerializationContext.SerializationPair<Object> values,
+                      Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.values = values;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public boolean update(Object key, UnaryOperator<Object> update) {
+        byte[] rawKey = rawKey(key);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Outcome outcome = apply(rawKey, update, false);
+            if (outcome != Outcome.CONFLICT) {
+                return outcome == Outcome.CHANGED;
+            }
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(rawKey));
+        return true;
+    }
+
+    @Override
+    public boolean replace(Object key, UnaryOperator<Object> update) {
+        return apply(rawKey(key), update, true) == Outcome.CHANGED;
+    }
+
+    private Outcome apply(byte[] rawKey, UnaryOperator<Object> update, boolean renewTtl) {
+        byte[] current = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+        Object value = decode(current);
+        Object updated = update.apply(value);
+        if (updated == value) {
+            return Outcome.UNCHANGED;
+        }
+
+        byte[] expected = current == null ? NO_VALUE : sha1Hex(current);
+        byte[] mode = mode(updated, current == null || renewTtl);
+        byte[] encoded = updated == null ? NO_VALUE : ByteUtils.getBytes(values.write(updated));
+        Long applied = redisTemplate.execute((RedisCallback<Long>) connection ->
+                compareAndSet(connection, rawKey, expected, mode, encoded));
+        return applied != null && applied == 1 ? Outcome.CHANGED : Outcome.CONFLICT;
+    }
+
+    private byte[] mode(Object updated, boolean setTtl) {
+        String mode;
+        if (updated == null) {
+            mode = "delete";
+        } else if (!setTtl) {
+            mode = "keepttl";
+        } else if (ttl.isZero()) {
+            mode = "persist";
+        } else {
+            mode = String.valueOf(ttl.toMillis());
+        }
+        return mode.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Object decode(byte[] raw) {
+        if (raw == null || Arrays.equals(raw, NULL_VALUE)) {
+            return null;
+        }
+        return values.read(ByteBuffer.wrap(raw));
+    }
+
+    private byte[] rawKey(Object key) {
+        return (keyPrefix + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long compareAndSet(RedisConnection connection, byte[] key, byte[]... args) {
+        byte[][] keysAndArgs = new byte[args.length + 1][];
+        keysAndArgs[0] = key;
+        System.arraycopy(args, 0, keysAndArgs, 1, args.length);
+        return connection.scriptingCommands().eval(COMPARE_AND_SET, ReturnType.INTEGER, 1, keysAndArgs);
+    }
+
+    private static byte[] sha1Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+            return HexFormat.of().formatHex(digest).getBytes(StandardCharsets.US_ASCII);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private enum Outcome {
+        CHANGED, UNCHANGED, CONFLICT
+    }
+}
@@ -0,0 +1,330 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.dto.TodoResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary Redis value format for {@link TodoResponse} and lists of them; anything else is written by the
+ * {@code fallback} serializer behind a {@code JSON} tag.
+ * <p>
+ * Layout: {@code MAGIC, SCHEMA_VERSION, flags, tag, body}. With {@link #FLAG_LZ4} the body is the varint raw
+ * length followed by an LZ4 block; bodies are compressed only above {@code compressionThreshold} bytes and only
+ * when that actually saves space. A todo is a presence byte (one bit per nullable field plus {@code completed}),
+ * then varint id, length-prefixed UTF-8 strings, timestamps as epoch seconds plus nanos and the varint version.
+ * <p>
+ * Values without the magic byte are read with the fallback serializer, so JSON entries written before the
+ * switch stay readable until they expire. Entries from an unknown schema version read as a cache miss, and
+ * {@link TwoTierCache} replaces them with the value it loads; bump {@link #SCHEMA_VERSION} whenever the body
+ * layout changes. Values cut short fail with a {@link SerializationException}.
+ */
+@Slf4j
+public class TodoCacheCodec implements RedisSerializer<Object> {
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte SCHEMA_VERSION = 2;
+
+    static final int FLAG_LZ4 = 1;
+
+    static final byte TAG_JSON = 0;
+    static final byte TAG_TODO = 1;
+    static final byte TAG_TODO_LIST = 2;
+
+    private static final int HEADER_SIZE = 4;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_TITLE = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_UPDATED_AT = 1 << 4;
+    private static final int COMPLETED = 1 << 5;
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public TodoCacheCodec(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        Output out = new Output(64);
+        byte tag;
+        if (value instanceof TodoResponse todo) {
+            tag = TAG_TODO;
+            writeTodo(out, todo);
+        } else if (isTodoList(value)) {
+            tag = TAG_TODO_LIST;
+            List<?> todos = (List<?>) value;
+            out.writeVarLong(todos.size());
+            for (Object todo : todos) {
+                writeTodo(out, (TodoResponse) todo);
+            }
+        } else {
+            tag = TAG_JSON;
+            byte[] json = fallback.serialize(value);
+            out.writeBytes(json, 0, json.length);
+        }
+        return frame(tag, out);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Cache value shorter than its header");
+        }
+        if (bytes[1] != SCHEMA_VERSION) {
+            log.debug("Ignoring cache entry with schema version {}", bytes[1]);
+            return null;
+        }
+
+        int flags = bytes[2];
+        byte tag = bytes[3];
+        Input in = new Input(bytes, HEADER_SIZE);
+        if ((flags & FLAG_LZ4) != 0) {
+            int rawLength = in.readLength();
+            byte[] raw = new byte[rawLength];
+            try {
+                decompressor.decompress(bytes, in.position, raw, 0, rawLength);
+            } catch (LZ4Exception | ArrayIndexOutOfBoundsException e) {
+                throw new SerializationException("Corrupt LZ4 block in cache value", e);
+            }
+            in = new Input(raw, 0);
+        }
+
+        return switch (tag) {
+            case TAG_TODO -> readTodo(in);
+            case TAG_TODO_LIST -> {
+                int size = in.readLength();
+                // no todo takes less than a byte, so a larger count cannot be satisfied
+                in.require(size);
+                List<TodoResponse> todos = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    todos.add(readTodo(in));
+                }
+                yield todos;
+            }
+            case TAG_JSON -> fallback.deserialize(Arrays.copyOfRange(in.bytes, in.position, in.bytes.length));
+            default -> throw new SerializationException("Unknown cache value tag " + tag);
+        };
+    }
+
+    private byte[] frame(byte tag, Output body) {
+        byte flags = 0;
+        byte[] payload = body.bytes;
+        int payloadLength = body.length;
+
+        if (body.length > compressionThreshold) {
+            Output compressed = new Output(compressor.maxCompressedLength(body.length) + 5);
+            compressed.writeVarLong(body.length);
+            try {
+                compressed.length += compressor.compress(body.bytes, 0, body.length,
+                        compressed.bytes, compressed.length, compressed.bytes.length - compressed.length);
+            } catch (LZ4Exception e) {
+                throw new SerializationException("Could not compress cache value", e);
+            }
+            if (compressed.length < body.length) {
+                flags = FLAG_LZ4;
+                payload = compressed.bytes;
+                payloadLength = compressed.length;
+            }
+        }
+
+        byte[] result = new byte[HEADER_SIZE + payloadLength];
+        result[0] = MAGIC;
+        result[1] = SCHEMA_VERSION;
+        result[2] = flags;
+        result[3] = tag;
+        System.arraycopy(payload, 0, result, HEADER_SIZE, payloadLength);
+        return result;
+    }
+
+    private static boolean isTodoList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof TodoResponse)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeTodo(Output out, TodoResponse todo) {
+        int presence = (todo.getId() != null ? HAS_ID : 0)
+                | (todo.getTitle() != null ? HAS_TITLE : 0)
+                | (todo.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (todo.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (todo.getUpdatedAt() != null ? HAS_UPDATED_AT : 0)
+                | (todo.isCompleted() ? COMPLETED : 0);
+        out.writeByte(presence);
+        if (todo.getId() != null) {
+            out.writeVarLong(zigZag(todo.getId()));
+        }
+        if (todo.getTitle() != null) {
+            out.writeString(todo.getTitle());
+        }
+        if (todo.getDescription() != null) {
+            out.writeString(todo.getDescription());
+        }
+        if (todo.getCreatedAt() != null) {
+            writeTimestamp(out, todo.getCreatedAt());
+        }
+        if (todo.getUpdatedAt() != null) {
+            writeTimestamp(out, todo.getUpdatedAt());
+        }
+        out.writeVarLong(todo.getVersion());
+    }
+
+    private static TodoResponse readTodo(Input in) {
+        int presence = in.readByte();
+        return new TodoResponse(
+                (presence & HAS_ID) != 0 ? unZigZag(in.readVarLong()) : null,
+                (presence & HAS_TITLE) != 0 ? in.readString() : null,
+                (presence & HAS_DESCRIPTION) != 0 ? in.readString() : null,
+                (presence & COMPLETED) != 0,
+                (presence & HAS_CREATED_AT) != 0 ? readTimestamp(in) : null,
+                (presence & HAS_UPDATED_AT) != 0 ? readTimestamp(in) : null,
+                in.readVarLong());
+    }
+
+    private static void writeTimestamp(Output out, LocalDateTime timestamp) {
+        out.writeVarLong(zigZag(timestamp.toEpochSecond(ZoneOffset.UTC)));
+        out.writeVarLong(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(Input in) {
+        long epochSecond = unZigZag(in.readVarLong());
+        int nano = (int) in.readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] bytes;
+        private int length;
+
+        private Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            writeBytes(utf8, 0, utf8.length);
+        }
+
+        private void writeBytes(byte[] source, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private int readByte() {
+            require(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("Malformed varint in cache value");
+        }
+
+        /**
+         * A byte length or element count, rejected when it does not fit an array.
+         */
+        private int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                throw new SerializationException("Malformed length " + length + " in cache value");
+            }
+            return (int) length;
+        }
+
+        private String readString() {
+            int length = readLength();
+            require(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void require(int count) {
+            if (count > bytes.length - position) {
+                throw new SerializationException("Truncated cache value");
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.dto.TodoCursor;
+
+/**
+ * Cache names and keys of the todo caches. Every key starts with the owning user id so a user's
+ * entries can be invalidated without touching other users.
+ */
+public final class TodoCacheKeys {
+
+    public static final String TODOS = "todos";
+    public static final String PAGED_TODOS = "pagedTodos";
+    public static final String COMPLETED_TODOS = "completedTodos";
+
+    private TodoCacheKeys() {}
+
+    public static String todo(Long userId, Long todoId) {
+        return userId + ":" + todoId;
+    }
+
+    public static String page(Long userId, int page, int size) {
+        return userId + ":" + page + ":" + size;
+    }
+
+    public static String pageAfter(Long userId, TodoCursor after, int size) {
+        return userId + ":after:" + (after == null ? "" : after.encode()) + ":" + size;
+    }
+
+    public static String completed(Long userId) {
+        return String.valueOf(userId);
+    }
+
+    /**
+     * Page size of a {@link #page} or {@link #pageAfter} key, which always ends with it.
+     */
+    public static int pageSize(String pageKey) {
+        return Integer.parseInt(pageKey.substring(pageKey.lastIndexOf(':') + 1));
+    }
+}
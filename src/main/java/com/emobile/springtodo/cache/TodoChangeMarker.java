@@ -0,0 +1,41 @@
+package com.emobile.springtodo.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Per-user Redis token replaced on every write, so a delta sync client holding the current token can be told
+ * "nothing changed" without a database query. Tokens are random rather than counters, so a key that expired
+ * and was recreated can never repeat a token an old client still holds.
+ */
+public class TodoChangeMarker {
+
+    private static final String KEY_PREFIX = "todo-changes::";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public TodoChangeMarker(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    public String current(Long userId) {
+        String key = KEY_PREFIX + userId;
+        String marker = redisTemplate.opsForValue().get(key);
+        if (marker != null) {
+            return marker;
+        }
+        redisTemplate.opsForValue().setIfAbsent(key, UUID.randomUUID().toString(), ttl);
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * Must run after the write is committed, so a reader never pairs the new token with old data.
+     */
+    public void touch(Long userId) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + userId, UUID.randomUUID().toString(), ttl);
+    }
+}
@@ -0,0 +1,501 @@
+package com.emobile.springtodo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache backed by a bounded in-process Caffeine L1 and a shared Redis L2.
+ * Reads go L1 -> L2 -> loader; evictions drop both tiers locally and ask the other nodes to drop their L1 copy.
+ * When null values are not allowed, a {@code null} result is simply not cached.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} are single-flight: concurrent misses for a key on this node share
+ * one in-flight future, and with a {@link CacheLoadLock} only one node at a time runs the loader. Entries loaded
+ * here are refreshed in the background ahead of their TTL with probability rising as expiry nears
+ * (XFetch, scaled by {@code earlyRefreshBeta} and how long the load took), so hot keys rarely expire under load.
+ * <p>
+ * A load must not bring back rows that a write replaced or evicted while it ran. Loads only fill a missing L2 entry,
+ * and not at all once a write or eviction of the key on this node has moved its generation on; refreshes replace
+ * the entry only if it is unchanged since they read it. A write on another node between a load's query and its put
+ * can still slip through until this node's L1 eviction arrives over pub/sub.
+ * <p>
+ * Once bound to a {@link MeterRegistry}, the L1 reports Caffeine's size, hit and eviction meters tagged
+ * {@code tier=l1}, L2 hits and misses are counted under the same {@code cache.gets} name with {@code tier=l2},
+ * and Redis reads, loads, puts and evictions are timed. L1 hits are deliberately not timed.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    static final String OPERATION_TIMER = "todo.cache.operation";
+    private static final String TIER_TAG = "tier";
+    private static final int GENERATION_STRIPES = 64;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final Cache l2;
+    private final L2EntryUpdater l2Entries;
+    private final CacheKeyIndex keyIndex;
+    private final boolean allowNullValues;
+    private final CacheLoadLock loadLock;
+    private final Duration ttl;
+    private final double earlyRefreshBeta;
+    private final Executor refreshExecutor;
+    private final TwoTierCacheManager cacheManager;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadStamp> loadStamps;
+    /**
+     * Bumped by every write and eviction, striped by key, so a load can tell whether its result is still current.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+
+    private volatile Timers timers = Timers.UNBOUND;
+
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                 Cache l2,
+                 L2EntryUpdater l2Entries,
+                 CacheKeyIndex keyIndex,
+                 boolean allowNullValues,
+                 CacheLoadLock loadLock,
+                 Duration ttl,
+                 double earlyRefreshBeta,
+                 com.github.benmanes.caffeine.cache.Cache<String, LoadStamp> loadStamps,
+                 Executor refreshExecutor,
+                 TwoTierCacheManager cacheManager) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.l2Entries = l2Entries;
+        this.keyIndex = keyIndex;
+        this.allowNullValues = allowNullValues;
+        this.loadLock = loadLock;
+        this.ttl = ttl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadStamps = loadStamps;
+        this.refreshExecutor = refreshExecutor;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(fromStoreValue(local));
+        }
+        l1Misses.increment();
+
+        long started = System.nanoTime();
+        ValueWrapper remote = l2.get(key);
+        timers.l2Get().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (remote == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        l1.put(localKey, toStoreValue(remote.get()));
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            if (shouldRefreshEarly(localKey(key))) {
+                refreshExecutor.execute(() -> refresh(key, valueLoader));
+            }
+            return (T) wrapper.get();
+        }
+        return (T) loadShared(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null && !allowNullValues) {
+            return;
+        }
+        long started = System.nanoTime();
+        String localKey = localKey(key);
+        l2.put(key, value);
+        l1.put(localKey, toStoreValue(value));
+        if (keyIndex != null) {
+            evictAll(keyIndex.register(localKey));
+        }
+        timers.put().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Write-through update of an entry as an atomic read-modify-write, on the terms of {@link L2EntryUpdater#update}:
+     * a concurrent change from any node is never lost. A changed entry is dropped from the L1 of every node, which
+     * {@link #put} leaves alone because a freshly loaded value cannot be stale elsewhere, and read back from L2.
+     */
+    public void patch(Object key, UnaryOperator<Object> update) {
+        String localKey = localKey(key);
+        nextGeneration(localKey);
+        long started = System.nanoTime();
+        if (l2Entries.update(key, update)) {
+            evictLocal(localKey);
+            cacheManager.publishEvict(name, List.of(localKey));
+        }
+        timers.put().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void evict(Object key) {
+        long started = System.nanoTime();
+        nextGeneration(localKey(key));
+        l2.evict(key);
+        evictLocal(localKey(key));
+        cacheManager.publishEvict(name, List.of(localKey(key)));
+        timers.evict().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    public void evictAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        keys.forEach(this::nextGeneration);
+        keys.forEach(l2::evict);
+        l1.invalidateAll(keys);
+        loadStamps.invalidateAll(keys);
+        cacheManager.publishEvict(name, keys);
+        timers.evict().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Evicts every key registered for {@code owner}; only available for caches with a key index.
+     */
+    public void evictOwner(String owner) {
+        evictAll(requireKeyIndex().drain(owner));
+    }
+
+    /**
+     * Keys registered for {@code owner}; only available for caches with a key index.
+     */
+    public Set<String> ownerKeys(String owner) {
+        return requireKeyIndex().keys(owner);
+    }
+
+    @Override
+    public void clear() {
+        nextGenerations();
+        l2.clear();
+        clearLocal();
+        cacheManager.publishClear(name);
+    }
+
+    public CacheTierStatistics statistics() {
+        return new CacheTierStatistics(l1Hits.sum(), l1Misses.sum(), l2Hits.sum(), l2Misses.sum());
+    }
+
+    void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, l1, name, Tags.of(TIER_TAG, "l1"));
+        l2Gets(registry, "hit", l2Hits);
+        l2Gets(registry, "miss", l2Misses);
+        timers = Timers.register(registry, name);
+    }
+
+    void evictLocal(String key) {
+        nextGeneration(key);
+        l1.invalidate(key);
+        loadStamps.invalidate(key);
+    }
+
+    void clearLocal() {
+        nextGenerations();
+        l1.invalidateAll();
+        loadStamps.invalidateAll();
+    }
+
+    private CacheKeyIndex requireKeyIndex() {
+        if (keyIndex == null) {
+            throw new IllegalStateException("Cache " + name + " does not track keys per owner");
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Runs the loader once per key on this node; concurrent callers wait for the same future.
+     */
+    private Object loadShared(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, future);
+        if (existing != null) {
+            return await(existing, key, valueLoader);
+        }
+        try {
+            Object value = loadExclusive(key, localKey, valueLoader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, future);
+        }
+    }
+
+    /**
+     * With a load lock, waits a bounded time for another node's load to land in L2 instead of loading again.
+     */
+    private Object loadExclusive(Object key, String localKey, Callable<?> valueLoader) {
+        if (loadLock == null) {
+            return loadAndPut(key, localKey, valueLoader);
+        }
+        String token = loadLock.tryAcquire(localKey);
+        if (token != null) {
+            try {
+                return loadAndPut(key, localKey, valueLoader);
+            } finally {
+                loadLock.release(localKey, token);
+            }
+        }
+        ValueWrapper loaded = loadLock.await(localKey, () -> l2.get(key));
+        if (loaded == null) {
+            return loadAndPut(key, localKey, valueLoader);
+        }
+        l1.put(localKey, toStoreValue(loaded.get()));
+        return loaded.get();
+    }
+
+    private Object loadAndPut(Object key, String localKey, Callable<?> valueLoader) {
+        long generation = generation(localKey);
+        long start = System.currentTimeMillis();
+        Object value = load(key, valueLoader);
+        if (putLoaded(key, localKey, value, generation)) {
+            stamp(localKey, start);
+        }
+        return value;
+    }
+
+    /**
+     * Stores a loaded value unless the key was written or evicted since the load started, or the L2 entry was
+     * filled by someone else in the meantime; a write-through value is always fresher than a load. An L2 entry
+     * without a readable value, unreadable or a cached null, is replaced.
+     */
+    private boolean putLoaded(Object key, String localKey, Object value, long generation) {
+        if ((value == null && !allowNullValues) || generation(localKey) != generation) {
+            return false;
+        }
+        long started = System.nanoTime();
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing != null) {
+            if (existing.get() != null) {
+                return false;
+            }
+            // an entry that reads as a miss, such as one from an older codec schema, would otherwise stay until it expires
+            l2.put(key, value);
+        }
+        l1.put(localKey, toStoreValue(value));
+        if (generation(localKey) != generation) {
+            l1.invalidate(localKey);
+        }
+        if (keyIndex != null) {
+            evictAll(keyIndex.register(localKey));
+        }
+        timers.put().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long started = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            timers.load().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void stamp(String localKey, long loadStartMillis) {
+        long now = System.currentTimeMillis();
+        if (!ttl.isZero() && earlyRefreshBeta > 0) {
+            loadStamps.put(localKey, new LoadStamp(now - loadStartMillis, now + ttl.toMillis()));
+        }
+    }
+
+    /**
+     * Reloads an entry ahead of its expiry. The L2 entry is replaced only if it still holds what it held before the
+     * load, so a write or eviction that lands meanwhile wins; a missing entry or a cached null is left to the next miss.
+     */
+    private void refresh(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, future) != null) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            AtomicReference<Object> loaded = new AtomicReference<>();
+            boolean replaced = l2Entries.replace(key, current -> {
+                if (current == null) {
+                    return null;
+                }
+                loaded.set(load(key, valueLoader));
+                return loaded.get();
+            });
+            if (replaced) {
+                Object value = loaded.get();
+                if (value == null) {
+                    l1.invalidate(localKey);
+                } else {
+                    l1.put(localKey, value);
+                    stamp(localKey, start);
+                }
+                if (keyIndex != null) {
+                    evictAll(keyIndex.register(localKey));
+                }
+            }
+            future.complete(loaded.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            log.warn("Early refresh of {} in cache {} failed", localKey, name, e);
+        } finally {
+            inFlight.remove(localKey, future);
+        }
+    }
+
+    private boolean shouldRefreshEarly(String localKey) {
+        LoadStamp stamp = loadStamps.getIfPresent(localKey);
+        if (stamp == null) {
+            return false;
+        }
+        double gap = stamp.loadMillis() * earlyRefreshBeta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        if (System.currentTimeMillis() + gap < stamp.expiresAtMillis()) {
+            return false;
+        }
+        loadStamps.invalidate(localKey);
+        return true;
+    }
+
+    private static Object await(CompletableFuture<Object> future, Object key, Callable<?> valueLoader) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    record LoadStamp(long loadMillis, long expiresAtMillis) {
+    }
+
+    /**
+     * Operation timers; until the cache is bound they are registered on an empty composite and record nothing.
+     */
+    record Timers(Timer l2Get, Timer load, Timer put, Timer evict) {
+        static final Timers UNBOUND = register(new CompositeMeterRegistry(), "unbound");
+
+        static Timers register(MeterRegistry registry, String cacheName) {
+            return new Timers(timer(registry, cacheName, "l2_get"),
+                    timer(registry, cacheName, "load"),
+                    timer(registry, cacheName, "put"),
+                    timer(registry, cacheName, "evict"));
+        }
+
+        private static Timer timer(MeterRegistry registry, String cacheName, String operation) {
+            return Timer.builder(OPERATION_TIMER)
+                    .description("Latency of two-tier cache operations that go past the L1")
+                    .tag("cache", cacheName)
+                    .tag("operation", operation)
+                    .register(registry);
+        }
+    }
+
+    private void l2Gets(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("cache.gets", counter, LongAdder::sum)
+                .description("Number of cache gets that reached the Redis tier")
+                .tag("cache", name)
+                .tag(TIER_TAG, "l2")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private long generation(String localKey) {
+        return generations.get(stripe(localKey));
+    }
+
+    private void nextGeneration(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+    }
+
+    private void nextGenerations() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String localKey) {
+        return localKey.hashCode() & (GENERATION_STRIPES - 1);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static Object fromStoreValue(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+}
@@ -0,0 +1,164 @@
+package com.emobile.springtodo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link CacheManager} that puts a per-node Caffeine L1 in front of every {@link RedisCacheManager} cache.
+ * L1 evictions are propagated to the other nodes through Redis pub/sub on {@code channel}.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener, InitializingBean, MeterBinder {
+
+    private static final String SEPARATOR = "\n";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheProperties properties;
+    private final String channel;
+    private final Executor l1Executor;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               CacheProperties properties,
+                               Executor l1Executor) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.channel = properties.getInvalidationChannel();
+        this.l1Executor = l1Executor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        redisCacheManager.afterPropertiesSet();
+    }
+
+    /**
+     * Binds the caches created so far; caches created later are bound as they are created.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        caches.values().forEach(cache -> cache.bindTo(registry));
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    public void evictOwner(String cacheName, String owner) {
+        getCache(cacheName).evictOwner(owner);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    public Map<String, CacheTierStatistics> statistics() {
+        Map<String, CacheTierStatistics> statistics = new ConcurrentHashMap<>();
+        caches.forEach((name, cache) -> statistics.put(name, cache.statistics()));
+        return statistics;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.clearLocal();
+            return;
+        }
+        for (int i = 2; i < parts.length; i++) {
+            cache.evictLocal(parts[i]);
+        }
+    }
+
+    void publishEvict(String cacheName, Collection<String> keys) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + String.join(SEPARATOR, keys));
+    }
+
+    void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish L1 cache invalidation on channel {}", channel, e);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        if (!(redisCacheManager.getCache(name) instanceof RedisCache l2)) {
+            throw new IllegalStateException("No Redis cache configured with name " + name);
+        }
+        CacheProperties.Spec spec = properties.cache(name);
+        L2EntryUpdater l2Entries = new RedisEntryUpdater(redisTemplate, properties.redisKeyPrefix(name),
+                l2.getCacheConfiguration().getValueSerializationPair(), spec.getTtl());
+        com.github.benmanes.caffeine.cache.Cache<String, Object> l1 = Caffeine.newBuilder()
+                .maximumSize(properties.getL1().getMaximumSize())
+                .expireAfterWrite(l1ExpireAfterWrite(spec))
+                .recordStats()
+                .executor(l1Executor)
+                .build();
+        CacheKeyIndex keyIndex = properties.isIndexed(name)
+                ? new CacheKeyIndex(redisTemplate, spec.getKeyPrefix() + name + ":owner-index:",
+                        spec.getTtl(), spec.getMaxEntriesPerOwner())
+                : null;
+        CacheProperties.Load load = properties.getLoad();
+        CacheLoadLock loadLock = load.isDistributedLock()
+                ? new CacheLoadLock(redisTemplate, spec.getKeyPrefix() + name + ":load-lock:",
+                        load.getLockTtl(), load.getLockWait(), load.getLockPollInterval())
+                : null;
+        com.github.benmanes.caffeine.cache.Cache<String, TwoTierCache.LoadStamp> loadStamps = Caffeine.newBuilder()
+                .maximumSize(properties.getL1().getMaximumSize())
+                .executor(l1Executor)
+                .build();
+        TwoTierCache cache = new TwoTierCache(name, l1, l2, l2Entries, keyIndex, spec.isCacheNullValues(), loadLock,
+                spec.getTtl(), load.getEarlyRefreshBeta(), loadStamps, l1Executor, this);
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            cache.bindTo(registry);
+        }
+        return cache;
+    }
+
+    /**
+     * An L1 copy must not outlive the Redis entry it was read from.
+     */
+    private Duration l1ExpireAfterWrite(CacheProperties.Spec spec) {
+        Duration l1Expiry = properties.getL1().getExpireAfterWrite();
+        return spec.getTtl().isZero() || l1Expiry.compareTo(spec.getTtl()) <= 0 ? l1Expiry : spec.getTtl();
+    }
+}
@@ -0,0 +1,94 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.datasource.ReadYourWritesTracker;
+import com.emobile.springtodo.datasource.ReplicaRoutingDataSource;
+import com.emobile.springtodo.datasource.ReplicaRoutingProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code todo.datasource.routing.enabled} the application {@link DataSource} becomes a
+ * {@link LazyConnectionDataSourceProxy} over the primary pool. It fetches the real connection at the first
+ * statement, once the transaction is known to be read-only, and hands read-only transactions to
+ * {@link ReplicaRoutingDataSource}. Read paths opt in with {@code @Transactional(readOnly = true)}.
+ * <p>
+ * Each pool is named ({@code todo-primary}, {@code todo-replica-N}) and reports the usual {@code hikaricp.*}
+ * meters under its name.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "todo.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class DataSourceRoutingConfig {
+    public static final String PRIMARY_DATA_SOURCE = "primaryDataSource";
+
+    // the lowest Hikari accepts, and below the replica connection timeout
+    private static final long REPLICA_VALIDATION_TIMEOUT_MILLIS = 250;
+
+    @Bean(PRIMARY_DATA_SOURCE)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("todo-primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(StringRedisTemplate stringRedisTemplate,
+                                                       ReplicaRoutingProperties properties) {
+        return new ReadYourWritesTracker(stringRedisTemplate, properties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier(PRIMARY_DATA_SOURCE) DataSource primary,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ReplicaRoutingProperties properties,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("todo-replica-" + i);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+            config.setMaximumPoolSize(properties.getMaximumPoolSize());
+            config.setReadOnly(true);
+            config.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            config.setValidationTimeout(REPLICA_VALIDATION_TIMEOUT_MILLIS);
+            // a replica that is down at startup is skipped by the lag check rather than failing the application
+            config.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker, properties.getMaxLag());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier(PRIMARY_DATA_SOURCE) DataSource primary,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
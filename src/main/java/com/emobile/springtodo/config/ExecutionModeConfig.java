@@ -0,0 +1,73 @@
+package com.emobile.springtodo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Execution mode selected by {@code spring.threads.virtual.enabled}. Spring Boot moves Tomcat, {@code @Async}
+ * and {@code @Scheduled} onto virtual threads by itself; this covers the executors the application builds
+ * on its own and keeps the connection pool in line with the mode.
+ */
+@Configuration
+public class ExecutionModeConfig {
+    public static final String CACHE_EXECUTOR = "cacheExecutor";
+    public static final String STREAM_EXECUTOR = "streamExecutor";
+
+    @Bean(CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualCacheExecutor() {
+        return new VirtualThreadTaskExecutor("cache-");
+    }
+
+    /**
+     * Cache loads block on Redis and the database, so they get a bounded pool of their own rather than the common
+     * pool. When it is saturated the caller runs the task itself, which slows it down instead of dropping a load.
+     */
+    @Bean(CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor platformCacheExecutor(@Value("${todo.cache.platform-threads:8}") int threads,
+                                          @Value("${todo.cache.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("cache-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(STREAM_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualStreamExecutor() {
+        return new VirtualThreadTaskExecutor("todo-stream-");
+    }
+
+    /**
+     * Stream writes may block on a slow client, so they get their own small pool rather than the common pool.
+     */
+    @Bean(STREAM_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor platformStreamExecutor(@Value("${todo.stream.platform-threads:16}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("todo-stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public static HikariPoolSizingPostProcessor hikariPoolSizingPostProcessor(Environment environment) {
+        return new HikariPoolSizingPostProcessor(environment);
+    }
+}
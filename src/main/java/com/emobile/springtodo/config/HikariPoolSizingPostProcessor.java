@@ -0,0 +1,49 @@
+package com.emobile.springtodo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * On platform threads the Tomcat worker pool already bounds how many requests can hold a connection at once.
+ * Virtual threads remove that bound, so the pool becomes the only limit on database concurrency: it is sized
+ * from {@code todo.datasource.virtual-threads.*}, kept at a fixed size, and callers wait for a connection
+ * at most {@code connection-timeout} instead of piling up on the database.
+ */
+@Slf4j
+public class HikariPoolSizingPostProcessor implements BeanPostProcessor {
+    private static final String PREFIX = "todo.datasource.virtual-threads.";
+
+    private final Environment environment;
+
+    public HikariPoolSizingPostProcessor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource dataSource)) {
+            return bean;
+        }
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            return bean;
+        }
+
+        int maximumPoolSize = environment.getProperty(PREFIX + "maximum-pool-size", Integer.class,
+                Runtime.getRuntime().availableProcessors() * 2 + 1);
+        Duration connectionTimeout = DurationStyle.detectAndParse(
+                environment.getProperty(PREFIX + "connection-timeout", "5s"));
+
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMinimumIdle(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        log.info("Virtual threads: Hikari pool {} fixed at {} connections, connection timeout {}",
+                beanName, maximumPoolSize, connectionTimeout);
+        return bean;
+    }
+}
@@ -0,0 +1,24 @@
+package com.emobile.springtodo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Repositories and the auth service are timed through {@code @Timed}. Caching advice is ordered ahead of the
+ * timing aspect, so repository timers measure database work only and cache hits show up under the cache meters.
+ * Meter tags are limited to names fixed in code (class, method, cache, operation) to keep cardinality bounded.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String REPOSITORY_TIMER = "todo.repository";
+    public static final String AUTH_TIMER = "todo.auth.request";
+    public static final int CACHING_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
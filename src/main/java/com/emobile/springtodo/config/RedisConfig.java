@@ -1,9 +1,16 @@
 package com.emobile.springtodo.config;
 
+import com.emobile.springtodo.cache.CacheMemorySampler;
+import com.emobile.springtodo.cache.CacheProperties;
+import com.emobile.springtodo.cache.TodoCacheCodec;
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,12 +18,21 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 @Configuration
-@EnableCaching
+@EnableCaching(order = MetricsConfig.CACHING_ORDER)
+@EnableConfigurationProperties(CacheProperties.class)
 public class RedisConfig {
 
     @Bean
@@ -24,9 +40,7 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        ObjectMapper objectMapper = createObjectMapper();
-
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        GenericJackson2JsonRedisSerializer serializer = jsonSerializer();
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(serializer);
@@ -38,24 +52,65 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        ObjectMapper objectMapper = createObjectMapper();
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            CacheProperties cacheProperties,
+                                            @Qualifier(ExecutionModeConfig.CACHE_EXECUTOR) Executor cacheExecutor) {
+        GenericJackson2JsonRedisSerializer jsonSerializer = jsonSerializer();
+        RedisSerializer<Object> serializer = "json".equalsIgnoreCase(cacheProperties.getCodec().getType())
+                ? jsonSerializer
+                : new TodoCacheCodec(jsonSerializer, cacheProperties.getCodec().getCompressionThreshold());
 
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        cacheProperties.getCaches().forEach((name, spec) ->
+                cacheConfigurations.put(name, cacheConfiguration(spec, serializer)));
 
-        RedisCacheConfiguration cacheConfiguration =
-                RedisCacheConfiguration.defaultCacheConfig()
-                        .serializeValuesWith(
-                                RedisSerializationContext.SerializationPair.fromSerializer(serializer)
-                        );
-
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(cacheConfiguration)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration(new CacheProperties.Spec(), serializer))
+                .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+
+        return new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, cacheProperties, cacheExecutor);
+    }
+
+    @Bean
+    public TodoChangeMarker todoChangeMarker(StringRedisTemplate stringRedisTemplate, CacheProperties cacheProperties) {
+        return new TodoChangeMarker(stringRedisTemplate, cacheProperties.getChangeMarkerTtl());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.sampler", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CacheMemorySampler cacheMemorySampler(StringRedisTemplate stringRedisTemplate,
+                                                 CacheProperties cacheProperties) {
+        return new CacheMemorySampler(stringRedisTemplate, cacheProperties);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoTierCacheManager cacheManager,
+                                                                       CacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheProperties.getInvalidationChannel()));
+        return container;
+    }
+
+    private static RedisCacheConfiguration cacheConfiguration(CacheProperties.Spec spec, RedisSerializer<Object> serializer) {
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
+                .entryTtl(spec.getTtl())
+                .computePrefixWith(cacheName -> spec.getKeyPrefix() + cacheName + "::");
+        return spec.isCacheNullValues() ? configuration : configuration.disableCachingNullValues();
     }
 
+    /**
+     * The default-typing JSON serializer for Redis values, and the fallback of {@link TodoCacheCodec}.
+     */
+    public static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        return new GenericJackson2JsonRedisSerializer(createObjectMapper());
+    }
 
-    private ObjectMapper createObjectMapper() {
+    private static ObjectMapper createObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
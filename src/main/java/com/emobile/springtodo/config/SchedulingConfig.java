@@ -0,0 +1,13 @@
+package com.emobile.springtodo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs: the Redis memory sampler, the replica lag check, the event stream heartbeat
+ * and the partition backfill. They share the scheduler Spring Boot configures under {@code spring.task.scheduling}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -22,7 +22,8 @@ public class AuthController {
     @Operation(summary = "Регистрация пользователя", description = "Создаёт нового пользователя в системе.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь успешно зарегистрирован"),
-            @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Очередь хеширования паролей переполнена", content = @Content)
     })
     @PostMapping("/register")
     public AuthResponse register(@Valid @RequestBody UserRegistrationRequest request) {
@@ -32,7 +33,8 @@ public class AuthController {
     @Operation(summary = "Авторизация пользователя", description = "Авторизует пользователя и возвращает токены.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь успешно авторизован"),
-            @ApiResponse(responseCode = "401", description = "Неверные учетные данные", content = @Content)
+            @ApiResponse(responseCode = "401", description = "Неверные учетные данные", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Очередь хеширования паролей переполнена", content = @Content)
     })
     @PostMapping("/login")
     public AuthResponse login(@Valid @RequestBody AuthRequest request) {
@@ -48,4 +50,14 @@ public class AuthController {
     public AuthResponse refreshToken(@RequestBody RefreshTokenDto refreshToken) {
         return authService.refreshAccessToken(refreshToken.getRefreshToken());
     }
+
+    @Operation(summary = "Выход пользователя", description = "Отзывает переданный access токен до истечения его срока действия.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Токен отозван"),
+            @ApiResponse(responseCode = "401", description = "Недействительный токен", content = @Content)
+    })
+    @PostMapping("/logout")
+    public void logout(@RequestHeader("Authorization") String authorization) {
+        authService.logout(authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization);
+    }
 }
@@ -1,19 +1,35 @@
 package com.emobile.springtodo.controller;
 
 import com.emobile.springtodo.controller.interfaces.TodoApi;
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoCursor;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoImportResponse;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoSuggestion;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import com.emobile.springtodo.exception.TodoVersionConflictException;
+import com.emobile.springtodo.exception.UnsupportedFormatException;
 import com.emobile.springtodo.service.todo.TodoService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/v1/api/todos")
@@ -29,13 +45,37 @@ public class TodoController implements TodoApi {
     }
 
     @Override
-    public TodoResponse updateTodo(@Valid @RequestBody TodoUpdateRequest request, Principal principal) {
-        return todoService.updateTodo(request, principal);
+    public ResponseEntity<TodoResponse> updateTodo(@Valid @RequestBody TodoUpdateRequest request, String ifMatch,
+                                                   Principal principal) {
+        TodoResponse updated = todoService.updateTodo(request, expectedVersion(ifMatch), principal);
+        return ResponseEntity.ok()
+                .eTag(etag(updated))
+                .body(updated);
     }
 
     @Override
-    public List<TodoResponse> getAllTodosWithPagination( Principal principal,int page, int size) {
-        return todoService.allTodosByPrincipalWithPagination(principal, page, size);
+    public TodoBatchResponse createTodos(@RequestBody List<TodoCreateRequest> requests, Principal principal) {
+        return todoService.saveTodos(requests, principal);
+    }
+
+    @Override
+    public TodoBatchResponse updateTodos(@RequestBody List<TodoUpdateRequest> requests, Principal principal) {
+        return todoService.updateTodos(requests, principal);
+    }
+
+    @Override
+    public ResponseEntity<List<TodoResponse>> getAllTodosWithPagination(Principal principal, int page, int size, String cursor) {
+        List<TodoResponse> todos = cursor == null
+                ? todoService.allTodosByPrincipalWithPagination(principal, page, size)
+                : todoService.allTodosByPrincipalWithCursor(principal, cursor, size);
+
+        String nextCursor = TodoCursor.next(todos, size);
+        if (nextCursor == null) {
+            return ResponseEntity.ok(todos);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, nextCursor)
+                .body(todos);
     }
 
     @Override
@@ -44,8 +84,97 @@ public class TodoController implements TodoApi {
     }
 
     @Override
-    public TodoResponse getTodoById(Long todoId, Principal principal) {
-        return todoService.findTodoById(todoId, principal);
+    public TodoChangesResponse getChanges(Principal principal, String since, int size) {
+        return todoService.changesSince(principal, since, size);
+    }
+
+    @Override
+    public TodoSearchResponse searchTodos(Principal principal, String q, String cursor, int size) {
+        return todoService.searchTodos(principal, q, cursor, size);
+    }
+
+    @Override
+    public List<TodoSuggestion> suggestTodos(Principal principal, String prefix, int limit) {
+        return todoService.suggestTodos(principal, prefix, limit);
+    }
+
+    @Override
+    public SseEmitter streamChanges(Principal principal) {
+        return todoService.streamChanges(principal);
+    }
+
+    @Override
+    public void exportTodos(Principal principal, String format, HttpServletResponse response) throws IOException {
+        TodoFileFormat exportFormat = parseFormat(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"todos." + exportFormat.getExtension() + "\"");
+        todoService.exportTodos(principal, exportFormat, response.getOutputStream());
+    }
+
+    @Override
+    public TodoImportResponse importTodos(Principal principal, String format, HttpServletRequest request) throws IOException {
+        return todoService.importTodos(principal, parseFormat(format), request.getInputStream());
+    }
+
+    @Override
+    public ResponseEntity<TodoResponse> getTodoById(Long todoId, String ifNoneMatch, Principal principal) {
+        TodoResponse todo = todoService.findTodoById(todoId, principal);
+        String etag = etag(todo);
+        if (anyMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(todo);
+    }
+
+    private static String etag(TodoResponse todo) {
+        return "\"" + todo.getVersion() + "\"";
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so a {@code W/} prefix is ignored.
+     */
+    private static boolean anyMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Match uses strong comparison against a single version; anything else cannot match and fails with 412.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the precondition failure below
+            }
+        }
+        throw new TodoVersionConflictException("If-Match " + ifMatch + " does not match any version of this todo");
+    }
+
+    private static TodoFileFormat parseFormat(String format) {
+        try {
+            return TodoFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedFormatException("Unsupported file format: " + format);
+        }
     }
 
 }
@@ -1,6 +1,14 @@
 package com.emobile.springtodo.controller.exception_handler;
 
+import com.emobile.springtodo.exception.BatchSizeExceededException;
+import com.emobile.springtodo.exception.InvalidCursorException;
+import com.emobile.springtodo.exception.InvalidPageSizeException;
 import com.emobile.springtodo.exception.TodoNotFoundException;
+import com.emobile.springtodo.exception.TodoVersionConflictException;
+import com.emobile.springtodo.exception.TooManyRequestsException;
+import com.emobile.springtodo.exception.UnsupportedFormatException;
+import com.emobile.springtodo.exception.UserAuthException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,6 +26,45 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(TodoVersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleTodoVersionConflictException(TodoVersionConflictException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.PRECONDITION_FAILED.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler({InvalidCursorException.class, InvalidPageSizeException.class,
+            BatchSizeExceededException.class, UnsupportedFormatException.class})
+    public ResponseEntity<ErrorResponse> handleBadRequestException(RuntimeException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(UserAuthException.class)
+    public ResponseEntity<ErrorResponse> handleUserAuthException(UserAuthException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.UNAUTHORIZED.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
+    }
+
 
     public record ErrorResponse(int statusCode, String message) {}
 }
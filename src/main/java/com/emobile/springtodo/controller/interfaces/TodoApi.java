@@ -1,26 +1,39 @@
 package com.emobile.springtodo.controller.interfaces;
 
 
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoImportResponse;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoSuggestion;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.security.Principal;
 import java.util.List;
 
 @SecurityRequirement(name = "bearerAuth")
 @RequestMapping("/v1/api/todos")
 public interface TodoApi {
+    String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @Operation(summary = "Создать новую задачу", description = "Добавляет новую задачу в список пользователя.")
     @ApiResponses(value = {
@@ -35,27 +48,67 @@ public interface TodoApi {
             Principal principal
     );
 
-    @Operation(summary = "Обновить существующую задачу", description = "Обновляет существующую задачу по ID.")
+    @Operation(summary = "Обновить существующую задачу",
+            description = "Обновляет существующую задачу по ID. С заголовком If-Match задача обновляется, только если " +
+                    "её текущая версия совпадает с переданным ETag.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Задача успешно обновлена"),
-            @ApiResponse(responseCode = "404", description = "Задача не найдена", content = @Content)
+            @ApiResponse(responseCode = "200", description = "Задача успешно обновлена",
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Новая версия задачи")),
+            @ApiResponse(responseCode = "404", description = "Задача не найдена", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Задача уже изменена другим клиентом", content = @Content)
     })
     @PutMapping
-    TodoResponse updateTodo(
+    ResponseEntity<TodoResponse> updateTodo(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Данные для обновления задачи", required = true,
                     content = @Content(schema = @Schema(implementation = TodoUpdateRequest.class)))
             @Valid @RequestBody TodoUpdateRequest request,
+            @Parameter(description = "ETag задачи, полученный при последнем чтении")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Principal principal
+    );
+
+    @Operation(summary = "Создать задачи пакетом",
+            description = "Добавляет до todo.batch.max-size задач одним запросом. Некорректные элементы пропускаются " +
+                    "и возвращаются со статусом INVALID, остальные сохраняются.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, результат по каждому элементу"),
+            @ApiResponse(responseCode = "400", description = "Превышен размер пакета", content = @Content)
+    })
+    @PostMapping("/batch")
+    TodoBatchResponse createTodos(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Список задач для создания", required = true)
+            @RequestBody List<TodoCreateRequest> requests,
+            Principal principal
+    );
+
+    @Operation(summary = "Обновить задачи пакетом",
+            description = "Обновляет до todo.batch.max-size задач одним запросом. Результат возвращается по каждому элементу: " +
+                    "UPDATED, NOT_FOUND или INVALID.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, результат по каждому элементу"),
+            @ApiResponse(responseCode = "400", description = "Превышен размер пакета", content = @Content)
+    })
+    @PutMapping("/batch")
+    TodoBatchResponse updateTodos(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Список задач для обновления", required = true)
+            @RequestBody List<TodoUpdateRequest> requests,
             Principal principal
     );
 
-    @Operation(summary = "Получить все задачи с пагинацией", description = "Возвращает список задач пользователя с пагинацией.")
+    @Operation(summary = "Получить все задачи с пагинацией",
+            description = "Возвращает список задач пользователя с пагинацией. Без параметра cursor работает limit-offset " +
+                    "пагинация по page/size; с cursor (пустое значение - первая страница) - keyset пагинация по (created_at, id).")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список задач успешно получен")
+            @ApiResponse(responseCode = "200", description = "Список задач успешно получен",
+                    headers = @Header(name = NEXT_CURSOR_HEADER, description = "Курсор следующей страницы, если она может существовать")),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор или, с cursor, size вне диапазона " +
+                    "от 1 до todo.page.max-size", content = @Content)
     })
     @GetMapping
-    List<TodoResponse> getAllTodosWithPagination(Principal principal,
+    ResponseEntity<List<TodoResponse>> getAllTodosWithPagination(Principal principal,
             @Parameter(description = "Номер страницы (по умолчанию 1)") @RequestParam(defaultValue = "1") int page,
-            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size
+            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Курсор из заголовка X-Next-Cursor предыдущего ответа") @RequestParam(required = false) String cursor
     );
 
     @Operation(summary = "Получить все завершённые задачи", description = "Возвращает список всех завершённых задач.")
@@ -65,14 +118,103 @@ public interface TodoApi {
     @GetMapping("/completed")
     List<TodoResponse> getAllCompletedTodos(Principal principal);
 
-    @Operation(summary = "Получить задачу по ID", description = "Возвращает задачу по её идентификатору.")
+    @Operation(summary = "Получить изменения с момента синхронизации",
+            description = "Возвращает задачи, созданные или изменённые после watermark, и идентификаторы удалённых задач, " +
+                    "вместе с новым watermark. Без since возвращает все задачи. Если hasMore = true, следующую порцию " +
+                    "нужно запросить сразу с новым watermark. Изменения ещё не завершённых транзакций в ответ не попадают " +
+                    "и придут в следующем запросе. Если с прошлого ответа ничего не менялось, ответ приходит " +
+                    "без обращения к базе данных.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Изменения получены"),
+            @ApiResponse(responseCode = "400", description = "Некорректный watermark или size вне диапазона " +
+                    "от 1 до todo.page.max-size", content = @Content)
+    })
+    @GetMapping("/changes")
+    TodoChangesResponse getChanges(Principal principal,
+            @Parameter(description = "Watermark из предыдущего ответа") @RequestParam(required = false) String since,
+            @Parameter(description = "Максимум изменённых и удалённых задач в ответе (по умолчанию 100)") @RequestParam(defaultValue = "100") int size
+    );
+
+    @Operation(summary = "Полнотекстовый поиск задач",
+            description = "Ищет задачи по словам в названии и описании; совпадения в названии весят больше. " +
+                    "Поддерживает синтаксис веб-поиска: фразы в кавычках, OR и исключение через минус. " +
+                    "Результаты отсортированы по релевантности; следующую страницу возвращает nextCursor.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результаты поиска получены"),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор или size вне диапазона " +
+                    "от 1 до todo.page.max-size", content = @Content)
+    })
+    @GetMapping("/search")
+    TodoSearchResponse searchTodos(Principal principal,
+            @Parameter(description = "Поисковый запрос") @RequestParam String q,
+            @Parameter(description = "Курсор из nextCursor предыдущего ответа") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (по умолчанию 20)") @RequestParam(defaultValue = "20") int size
+    );
+
+    @Operation(summary = "Подсказки при вводе",
+            description = "Возвращает задачи, в названии которых есть слова, начинающиеся с введённых. " +
+                    "Последнее слово может быть недописанным. Отвечает из индекса в памяти, без обращения к базе данных.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Подсказки получены")
+    })
+    @GetMapping("/search/suggest")
+    List<TodoSuggestion> suggestTodos(Principal principal,
+            @Parameter(description = "Введённый текст") @RequestParam String prefix,
+            @Parameter(description = "Максимум подсказок (по умолчанию 10)") @RequestParam(defaultValue = "10") int limit
+    );
+
+    @Operation(summary = "Подписаться на изменения задач",
+            description = "Открывает поток Server-Sent Events с событиями created, updated, completed и changed. " +
+                    "Событие changed означает массовое изменение: задачи нужно догрузить через /changes. " +
+                    "Раз в несколько секунд приходит комментарий heartbeat. Клиент, не успевающий читать события, " +
+                    "отключается; после переподключения пропущенное догружается через /changes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Поток событий открыт")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamChanges(Principal principal);
+
+    @Operation(summary = "Экспортировать все задачи",
+            description = "Потоково выгружает все задачи пользователя в формате NDJSON (по умолчанию) или CSV, " +
+                    "не загружая их в память и не затрагивая кеш.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка задач",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    })
+    @GetMapping("/export")
+    void exportTodos(Principal principal,
+            @Parameter(description = "Формат выгрузки: ndjson или csv") @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException;
+
+    @Operation(summary = "Импортировать задачи",
+            description = "Потоково загружает задачи из тела запроса в формате NDJSON (по умолчанию) или CSV с заголовком " +
+                    "через PostgreSQL COPY. Строки проверяются по тем же правилам, что и при создании задачи; некорректные " +
+                    "пропускаются и учитываются в rejected. Файл не загружается в память целиком.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Импорт завершён, возвращает число загруженных и отклонённых строк"),
+            @ApiResponse(responseCode = "400", description = "Неподдерживаемый формат или заголовок CSV", content = @Content)
+    })
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", "application/octet-stream"})
+    TodoImportResponse importTodos(Principal principal,
+            @Parameter(description = "Формат файла: ndjson или csv") @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request
+    ) throws IOException;
+
+    @Operation(summary = "Получить задачу по ID",
+            description = "Возвращает задачу по её идентификатору. Если ETag из If-None-Match совпадает с текущей " +
+                    "версией, возвращает 304 без тела.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Задача найдена"),
+            @ApiResponse(responseCode = "200", description = "Задача найдена",
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Версия задачи")),
+            @ApiResponse(responseCode = "304", description = "Задача не изменилась", content = @Content),
             @ApiResponse(responseCode = "404", description = "Задача не найдена", content = @Content)
     })
     @GetMapping("/{todoId}")
-    TodoResponse getTodoById(
+    ResponseEntity<TodoResponse> getTodoById(
             @Parameter(description = "Идентификатор задачи", required = true) @PathVariable Long todoId,
+            @Parameter(description = "ETag задачи из предыдущего ответа")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Principal principal
     );
 }
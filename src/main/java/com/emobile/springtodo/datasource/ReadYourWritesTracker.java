@@ -0,0 +1,43 @@
+package com.emobile.springtodo.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Users who wrote within the last {@code window}, whose reads must stay on the primary. The mark is kept in Redis
+ * so that every node sees it, which matters because a read on any node may fill the shared cache; the local copy
+ * saves the Redis round trip for the writer's own follow-up requests.
+ */
+public class ReadYourWritesTracker {
+
+    private static final String KEY_PREFIX = "todo-written::";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration window;
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(StringRedisTemplate redisTemplate, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.window = window;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Must run after the write is committed, so the window starts no earlier than the replicas can see it.
+     */
+    public void recordWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+        redisTemplate.opsForValue().set(KEY_PREFIX + userId, "1", window);
+    }
+
+    public boolean wroteRecently(Long userId) {
+        return recentWriters.getIfPresent(userId) != null
+                || Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + userId));
+    }
+}
@@ -0,0 +1,263 @@
+package com.emobile.springtodo.datasource;
+
+import com.emobile.springtodo.security.CustomUserDetails;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Source of connections for read-only transactions, behind the {@code LazyConnectionDataSourceProxy} that the
+ * application uses as its {@link DataSource}; everything else goes straight to the primary. A read goes to the
+ * next replica in turn, except that it stays on the primary when:
+ * <ul>
+ *     <li>it runs inside {@link #onPrimary};</li>
+ *     <li>no authentication is bound to the thread and it does not run inside {@link #onReplica}, as for cache
+ *         refreshes and index loads on background threads, since nothing then says whose writes it must see;</li>
+ *     <li>the user wrote within the read-your-writes window (see {@link ReadYourWritesTracker});</li>
+ *     <li>every replica lags more than {@code max-lag} or is unreachable.</li>
+ * </ul>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    public static final String READS_METER = "todo.datasource.reads";
+
+    /**
+     * Replay lag in seconds, or NULL while no WAL receiver runs: a replica cut off from the primary has replayed
+     * everything it received and would otherwise look fresh. The receiver's row is visible without
+     * {@code pg_read_all_stats}, only its details are not.
+     */
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver) THEN NULL
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 1;
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+    // set inside onReplica, and true once a replica served one of its reads
+    private static final ThreadLocal<AtomicBoolean> ANONYMOUS_REPLICA = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, LongAdder> reads = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicas,
+                                    ReadYourWritesTracker readYourWrites,
+                                    Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readYourWrites = readYourWrites;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /**
+     * Runs {@code read} with any read-only transaction it opens on the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs a lookup that needs no authentication, such as finding a user by name during login, on a replica.
+     * The caller vouches that the lookup may read slightly stale rows; the user it is looking for may have
+     * registered moments ago, so a lookup that finds nothing on a replica is repeated on the primary.
+     */
+    public static <T> Optional<T> onReplica(Supplier<Optional<T>> lookup) {
+        AtomicBoolean previous = ANONYMOUS_REPLICA.get();
+        AtomicBoolean servedByReplica = new AtomicBoolean();
+        ANONYMOUS_REPLICA.set(servedByReplica);
+        Optional<T> result;
+        try {
+            result = lookup.get();
+        } finally {
+            if (previous == null) {
+                ANONYMOUS_REPLICA.remove();
+            } else {
+                ANONYMOUS_REPLICA.set(previous);
+            }
+        }
+        return result.isPresent() || !servedByReplica.get() ? result : onPrimary(lookup);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(Connector connector) throws SQLException {
+        if (FORCE_PRIMARY.get() != null) {
+            return primary("forced", connector);
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AtomicBoolean anonymousReplica = ANONYMOUS_REPLICA.get();
+        if (authentication == null && anonymousReplica == null) {
+            return primary("unattributed", connector);
+        }
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user
+                && readYourWrites.wroteRecently(user.getUserId())) {
+            return primary("recent_write", connector);
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.usable()) {
+                continue;
+            }
+            try {
+                Connection connection = connector.connect(replica.dataSource);
+                if (authentication == null) {
+                    anonymousReplica.set(true);
+                    count("replica", "anonymous");
+                } else {
+                    count("replica", "replica");
+                }
+                return connection;
+            } catch (SQLFeatureNotSupportedException e) {
+                throw e;
+            } catch (SQLException e) {
+                log.warn("Replica {} unavailable, routing reads elsewhere: {}", replica.name(), e.getMessage());
+                replica.lagMillis = Long.MAX_VALUE;
+            }
+        }
+        return primary("replicas_lagging", connector);
+    }
+
+    /**
+     * Measures replay lag on every replica. A replica that cannot be reached, or that is not receiving WAL, counts
+     * as infinitely behind until a later check succeeds. Replica pools time out quickly, so a dead replica does
+     * not hold up the other scheduled tasks for long.
+     */
+    @Scheduled(fixedDelayString = "${todo.datasource.routing.lag-check-interval:1s}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+                long lagMillis;
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    double lagSeconds = rs.getDouble(1);
+                    lagMillis = rs.wasNull() ? Long.MAX_VALUE : Math.round(lagSeconds * 1000);
+                }
+                if (replica.usable() && lagMillis == Long.MAX_VALUE) {
+                    log.warn("Replica {} is not receiving WAL, routing reads elsewhere", replica.name());
+                } else if (replica.usable() && lagMillis > maxLagMillis) {
+                    log.warn("Replica {} is {} ms behind, routing reads elsewhere", replica.name(), lagMillis);
+                }
+                replica.lagMillis = lagMillis;
+            } catch (SQLException e) {
+                if (replica.usable()) {
+                    log.warn("Replica {} unavailable, routing reads elsewhere: {}", replica.name(), e.getMessage());
+                }
+                replica.lagMillis = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String reason : List.of("forced", "unattributed", "recent_write", "replicas_lagging")) {
+            readsCounter(registry, "primary", reason);
+        }
+        readsCounter(registry, "replica", "replica");
+        readsCounter(registry, "replica", "anonymous");
+        for (Replica replica : replicas) {
+            Gauge.builder("todo.datasource.replica.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis / 1000.0)
+                    .description("Replay lag of the replica at the last check, NaN while it is unreachable or not receiving WAL")
+                    .baseUnit("seconds")
+                    .tag("pool", replica.name())
+                    .register(registry);
+            Gauge.builder("todo.datasource.replica.usable", replica, r -> r.usable() ? 1 : 0)
+                    .description("1 while the replica takes reads")
+                    .tag("pool", replica.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private Connection primary(String reason, Connector connector) throws SQLException {
+        count("primary", reason);
+        return connector.connect(primary);
+    }
+
+    private void count(String route, String reason) {
+        reads.computeIfAbsent(route + '/' + reason, key -> new LongAdder()).increment();
+    }
+
+    private void readsCounter(MeterRegistry registry, String route, String reason) {
+        LongAdder counter = reads.computeIfAbsent(route + '/' + reason, key -> new LongAdder());
+        FunctionCounter.builder(READS_METER, counter, LongAdder::sum)
+                .description("Connections handed to read-only transactions, by where they went and why")
+                .tag("route", route)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile long lagMillis;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private String name() {
+            return dataSource.getPoolName();
+        }
+
+        private boolean usable() {
+            return lagMillis <= maxLagMillis;
+        }
+    }
+}
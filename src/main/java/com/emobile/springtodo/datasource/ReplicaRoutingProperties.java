@@ -0,0 +1,45 @@
+package com.emobile.springtodo.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code todo.datasource.routing.*} settings. Replicas without credentials use those of {@code spring.datasource}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "todo.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+    private List<Replica> replicas = new ArrayList<>();
+    private int maximumPoolSize = 10;
+    /**
+     * How long a read waits for a replica connection before it falls back to the primary. Also bounds the lag
+     * check, which shares the scheduler with other tasks.
+     */
+    private Duration connectionTimeout = Duration.ofMillis(500);
+    /**
+     * Replay lag above which a replica stops taking reads until it catches up.
+     */
+    private Duration maxLag = Duration.ofSeconds(2);
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+    /**
+     * How long a user's reads stay on the primary after they write. Keep it above {@code max-lag} plus
+     * {@code lag-check-interval}, otherwise a user can read from a replica that has not replayed their write.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,22 @@
+package com.emobile.springtodo.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package com.emobile.springtodo.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBatchResponse {
+    private int succeeded;
+    private int failed;
+    private List<TodoBatchItemResult> results;
+}
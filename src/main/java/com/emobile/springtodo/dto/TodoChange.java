@@ -0,0 +1,7 @@
+package com.emobile.springtodo.dto;
+
+/**
+ * A changed todo with the id of the transaction that last wrote it; {@code settled} as in {@link TodoTombstone}.
+ */
+public record TodoChange(TodoResponse todo, long changeXid, boolean settled) {
+}
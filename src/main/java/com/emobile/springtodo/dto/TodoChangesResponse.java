@@ -0,0 +1,16 @@
+package com.emobile.springtodo.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoChangesResponse {
+    private List<TodoResponse> changed;
+    private List<Long> deleted;
+    private String watermark;
+    private boolean hasMore;
+}
@@ -0,0 +1,49 @@
+package com.emobile.springtodo.dto;
+
+import com.emobile.springtodo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque continuation token for keyset pagination: the {@code (created_at, id)} of the last row a client has seen.
+ */
+public record TodoCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static TodoCursor of(TodoResponse todo) {
+        return new TodoCursor(todo.getCreatedAt(), todo.getId());
+    }
+
+    public static String next(List<TodoResponse> page, int size) {
+        if (page.isEmpty() || page.size() < size) {
+            return null;
+        }
+        return of(page.get(page.size() - 1)).encode();
+    }
+
+    public static TodoCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Malformed cursor: " + token);
+            }
+            return new TodoCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
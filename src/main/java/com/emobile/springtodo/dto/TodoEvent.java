@@ -0,0 +1,30 @@
+package com.emobile.springtodo.dto;
+
+/**
+ * Change pushed to a user's open streams. {@link Type#CHANGED} carries no todo: it follows bulk writes and tells
+ * the client to catch up through the delta sync endpoint instead.
+ */
+public record TodoEvent(Type type, TodoResponse todo) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        COMPLETED,
+        CHANGED
+    }
+
+    public static TodoEvent created(TodoResponse todo) {
+        return new TodoEvent(Type.CREATED, todo);
+    }
+
+    /**
+     * An update that completes a todo which was not completed before is reported as {@link Type#COMPLETED}.
+     */
+    public static TodoEvent updated(TodoResponse todo, boolean wasCompleted) {
+        return new TodoEvent(todo.isCompleted() && !wasCompleted ? Type.COMPLETED : Type.UPDATED, todo);
+    }
+
+    public static TodoEvent changed() {
+        return new TodoEvent(Type.CHANGED, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.emobile.springtodo.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoImportResponse {
+    private long imported;
+    private long rejected;
+    private long durationMillis;
+    private long rowsPerSecond;
+    private List<String> errors;
+}
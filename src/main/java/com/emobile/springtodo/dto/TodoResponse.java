@@ -17,4 +17,5 @@ public class TodoResponse{
     private boolean completed;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private long version;
 }
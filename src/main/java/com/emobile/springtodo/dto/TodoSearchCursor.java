@@ -0,0 +1,45 @@
+package com.emobile.springtodo.dto;
+
+import com.emobile.springtodo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque continuation token for search results: the {@code (rank, id)} of the last hit a client has seen.
+ * Ranks are {@code real} in PostgreSQL and round-trip exactly through {@link Float#toString(float)}.
+ */
+public record TodoSearchCursor(float rank, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static String next(List<TodoSearchHit> hits, int size) {
+        if (hits.isEmpty() || hits.size() < size) {
+            return null;
+        }
+        TodoSearchHit last = hits.get(hits.size() - 1);
+        return new TodoSearchCursor(last.rank(), last.todo().getId()).encode();
+    }
+
+    public static TodoSearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Malformed cursor: " + token);
+            }
+            return new TodoSearchCursor(
+                    Float.parseFloat(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = Float.toString(rank) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
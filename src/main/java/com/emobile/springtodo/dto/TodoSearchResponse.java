@@ -0,0 +1,14 @@
+package com.emobile.springtodo.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoSearchResponse {
+    private List<TodoResponse> todos;
+    private String nextCursor;
+}
@@ -0,0 +1,4 @@
+package com.emobile.springtodo.dto;
+
+public record TodoSuggestion(Long id, String title) {
+}
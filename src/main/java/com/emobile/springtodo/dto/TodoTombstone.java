@@ -0,0 +1,8 @@
+package com.emobile.springtodo.dto;
+
+/**
+ * {@code settled}: the deleting transaction is older than every transaction still running, so no row can commit
+ * behind it any more.
+ */
+public record TodoTombstone(Long todoId, long changeXid, boolean settled) {
+}
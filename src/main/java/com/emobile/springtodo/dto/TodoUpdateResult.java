@@ -0,0 +1,7 @@
+package com.emobile.springtodo.dto;
+
+/**
+ * An updated todo together with whether it was completed before the update.
+ */
+public record TodoUpdateResult(TodoResponse todo, boolean wasCompleted) {
+}
@@ -0,0 +1,69 @@
+package com.emobile.springtodo.dto;
+
+import com.emobile.springtodo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque delta sync token: the {@code (change_xid, id)} of the last change and the {@code (change_xid, todo_id)}
+ * of the last tombstone a client has seen, plus the change marker that was current when it caught up.
+ * {@code change_xid} is the id of the writing transaction, assigned by the database, and the watermark only moves
+ * past rows whose transaction is older than every one still running, so no write can later commit behind it.
+ * A {@code null} marker means the client is still paging and must not be answered from the marker alone.
+ */
+public record TodoWatermark(long changedXid, long changedId,
+                            long deletedXid, long deletedId,
+                            String marker) {
+
+    public static final TodoWatermark INITIAL = new TodoWatermark(0, 0, 0, 0, null);
+
+    private static final String SEPARATOR = "|";
+
+    public static TodoWatermark decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 5) {
+                throw new InvalidCursorException("Malformed watermark: " + token);
+            }
+            return new TodoWatermark(
+                    Long.parseLong(parts[0]),
+                    Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]),
+                    parts[4].isEmpty() ? null : parts[4]
+            );
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed watermark: " + token);
+        }
+    }
+
+    /**
+     * Moves both keysets past the rows just returned and records {@code marker}.
+     */
+    public TodoWatermark advance(List<TodoChange> changed, List<TodoTombstone> deleted, String marker) {
+        long nextChangedXid = changedXid;
+        long nextChangedId = changedId;
+        if (!changed.isEmpty()) {
+            TodoChange last = changed.get(changed.size() - 1);
+            nextChangedXid = last.changeXid();
+            nextChangedId = last.todo().getId();
+        }
+        long nextDeletedXid = deletedXid;
+        long nextDeletedId = deletedId;
+        if (!deleted.isEmpty()) {
+            TodoTombstone last = deleted.get(deleted.size() - 1);
+            nextDeletedXid = last.changeXid();
+            nextDeletedId = last.todoId();
+        }
+        return new TodoWatermark(nextChangedXid, nextChangedId, nextDeletedXid, nextDeletedId, marker);
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, String.valueOf(changedXid), String.valueOf(changedId),
+                String.valueOf(deletedXid), String.valueOf(deletedId), marker == null ? "" : marker);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,7 @@
+package com.emobile.springtodo.dto;
+
+/**
+ * Who a user is, without the password hash; enough to issue a token or build a principal.
+ */
+public record UserIdentity(Long id, String username, String role) {
+}
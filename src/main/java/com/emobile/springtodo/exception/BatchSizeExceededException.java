@@ -0,0 +1,7 @@
+package com.emobile.springtodo.exception;
+
+public class BatchSizeExceededException extends RuntimeException {
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+}
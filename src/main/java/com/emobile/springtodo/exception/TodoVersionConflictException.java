@@ -0,0 +1,8 @@
+package com.emobile.springtodo.exception;
+
+
+public class TodoVersionConflictException extends RuntimeException{
+    public TodoVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,93 @@
+package com.emobile.springtodo.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Copies the rows that predate the hash-partitioned {@code todo_partitioned} table into it, in id order and one
+ * batch of {@code batch-size} ids per {@code pause}, while the mirror trigger keeps rows written meanwhile in step.
+ * Copied rows are share-locked, so a concurrent update or delete waits and its trigger then applies on top of the
+ * copy. Progress is kept in {@code todo_partition_backfill}: a restart resumes where it stopped and only one node
+ * copies at a time. Once it is finished, the next start swaps the tables in.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "todo.partitioning.backfill", name = "enabled", havingValue = "true")
+public class TodoPartitionBackfill {
+
+    static final String CLAIM_PROGRESS =
+            "SELECT last_id, max_id, finished FROM todo_partition_backfill WHERE id = 1 FOR UPDATE SKIP LOCKED";
+    static final String COPY_BATCH = """
+            WITH batch AS (
+                SELECT id, user_id, title, description, completed, created_at, updated_at, version, change_xid,
+                       search_vector
+                FROM todo
+                WHERE id > ? AND id <= ?
+                FOR SHARE
+            )
+            INSERT INTO todo_partitioned (id, user_id, title, description, completed, created_at, updated_at, version,
+                                          change_xid, search_vector)
+            SELECT * FROM batch
+            ON CONFLICT (id, user_id) DO NOTHING""";
+    static final String SAVE_PROGRESS =
+            "UPDATE todo_partition_backfill SET last_id = ?, finished = ?, updated_at = now() WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long batchSize;
+    private volatile boolean finished;
+    private long copiedRows;
+
+    public TodoPartitionBackfill(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${todo.partitioning.backfill.batch-size:5000}") long batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${todo.partitioning.backfill.pause:100ms}")
+    public void copyNextBatch() {
+        if (finished) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> copyBatch());
+    }
+
+    private void copyBatch() {
+        List<Progress> claimed = jdbcTemplate.query(CLAIM_PROGRESS,
+                (rs, rowNum) -> new Progress(rs.getLong(1), rs.getLong(2), rs.getBoolean(3)));
+        if (claimed.isEmpty()) {
+            // another node is copying a batch
+            return;
+        }
+        Progress progress = claimed.get(0);
+        if (progress.finished()) {
+            finished = true;
+            log.info("Todo partition backfill is finished; the partitioned table is swapped in on the next start");
+            return;
+        }
+
+        long to = Math.min(progress.lastId() + batchSize, progress.maxId());
+        copiedRows += jdbcTemplate.update(COPY_BATCH, progress.lastId(), to);
+        boolean done = to >= progress.maxId();
+        jdbcTemplate.update(SAVE_PROGRESS, to, done);
+        if (done) {
+            finished = true;
+            log.info("Todo partition backfill copied up to id {} ({} rows on this node); the partitioned table is "
+                    + "swapped in on the next start", to, copiedRows);
+        } else if (to / batchSize % 100 == 0) {
+            log.info("Todo partition backfill at id {} of {} ({} rows on this node)", to, progress.maxId(), copiedRows);
+        }
+    }
+
+    private record Progress(long lastId, long maxId, boolean finished) {
+    }
+}
@@ -1,13 +1,24 @@
 package com.emobile.springtodo.repository;
 
+import com.emobile.springtodo.dto.UserIdentity;
 import com.emobile.springtodo.entity.User;
 
 import java.util.Optional;
 
 public interface UserRepository {
-    String INSERT_USER = "INSERT INTO users (username, password, role) VALUES (?, ?, ?)";
-    String SELECT_BY_USERNAME = "SELECT * FROM users WHERE username = ?";
+    String INSERT_USER = "INSERT INTO users (username, password, role) VALUES (?, ?, ?) RETURNING id";
+    String SELECT_BY_USERNAME = "SELECT id, username, password, role FROM users WHERE username = ?";
+    String SELECT_IDENTITY_BY_USERNAME = "SELECT id, username, role FROM users WHERE username = ?";
+    String EXISTS_BY_USERNAME = "SELECT EXISTS (SELECT 1 FROM users WHERE username = ?)";
+    String UPDATE_PASSWORD = "UPDATE users SET password = ? WHERE id = ?";
 
     void save(User user);
+
+    /**
+     * Loads the password hash as well; only for checking credentials.
+     */
     Optional<User> findByUsername(String username);
+    Optional<UserIdentity> findIdentityByUsername(String username);
+    boolean existsByUsername(String username);
+    void updatePassword(Long userId, String password);
 }
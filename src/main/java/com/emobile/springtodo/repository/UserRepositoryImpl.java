@@ -1,38 +1,64 @@
 package com.emobile.springtodo.repository;
 
+import com.emobile.springtodo.config.MetricsConfig;
+import com.emobile.springtodo.dto.UserIdentity;
 import com.emobile.springtodo.entity.User;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 
 @Repository
 @RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
 public class UserRepositoryImpl implements UserRepository {
     private final JdbcTemplate jdbcTemplate;
 
 
     @Override
     public void save(User user) {
-        jdbcTemplate.update(INSERT_USER, user.getUsername(), user.getPassword(), user.getRole());
+        Long id = jdbcTemplate.queryForObject(INSERT_USER, Long.class,
+                user.getUsername(), user.getPassword(), user.getRole());
+        user.setId(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
 
         return jdbcTemplate.query(SELECT_BY_USERNAME, rs -> {
             if (rs.next()) {
                 User user = new User();
-                user.setId(rs.getLong("id"));
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                user.setRole(rs.getString("role"));
+                user.setId(rs.getLong(1));
+                user.setUsername(rs.getString(2));
+                user.setPassword(rs.getString(3));
+                user.setRole(rs.getString(4));
                 return Optional.of(user);
             }
             return Optional.empty();
         }, username);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserIdentity> findIdentityByUsername(String username) {
+        return jdbcTemplate.query(SELECT_IDENTITY_BY_USERNAME, rs -> rs.next()
+                ? Optional.of(new UserIdentity(rs.getLong(1), rs.getString(2), rs.getString(3)))
+                : Optional.empty(), username);
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_BY_USERNAME, Boolean.class, username));
+    }
+
+    @Override
+    public void updatePassword(Long userId, String password) {
+        jdbcTemplate.update(UPDATE_PASSWORD, password, userId);
+    }
+
 }
@@ -1,26 +1,87 @@
 package com.emobile.springtodo.repository.todo;
 
+import com.emobile.springtodo.dto.TodoChange;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoCursor;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchCursor;
+import com.emobile.springtodo.dto.TodoSearchHit;
+import com.emobile.springtodo.dto.TodoSuggestion;
+import com.emobile.springtodo.dto.TodoTombstone;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import com.emobile.springtodo.dto.TodoUpdateResult;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface TodoRepository {
+    String TODO_COLUMNS = "id, title, description, completed, created_at, updated_at, version";
+
     String INSERT_TODO = "INSERT INTO todo (user_id, title, description, completed, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
-    String UPDATE_TODO = "UPDATE todo SET title = ?, description = ?, completed = ?, updated_at = ? WHERE id = ? AND user_id = ?";
-    String SELECT_ALL_TODOS = "SELECT * FROM todo WHERE user_id = ? LIMIT ? OFFSET ?";
-    String SELECT_COMPLETED_TODOS = "SELECT * FROM todo WHERE user_id = ? AND completed = true";
-    String SELECT_TODO_BY_ID = "SELECT * FROM todo WHERE id = ? AND user_id = ?";
+    String UPDATE_TODO = "UPDATE todo SET title = ?, description = ?, completed = ?, updated_at = ?, version = version + 1 WHERE id = ? AND user_id = ?";
+    String INSERT_TODO_RETURNING = INSERT_TODO + " RETURNING " + TODO_COLUMNS;
+    /**
+     * Locks the row first so the completed flag returned last is the one this update replaced.
+     */
+    String WITH_PREVIOUS_TODO = "WITH previous AS (SELECT completed FROM todo WHERE id = ? AND user_id = ? FOR UPDATE) ";
+    String UPDATE_TODO_RETURNING = WITH_PREVIOUS_TODO + UPDATE_TODO + " RETURNING " + TODO_COLUMNS + ", (SELECT completed FROM previous)";
+    String UPDATE_TODO_IF_VERSION_RETURNING = WITH_PREVIOUS_TODO + UPDATE_TODO + " AND version = ? RETURNING " + TODO_COLUMNS + ", (SELECT completed FROM previous)";
+    String SELECT_TODO_VERSION = "SELECT version FROM todo WHERE id = ? AND user_id = ?";
+    String SELECT_ALL_TODOS = "SELECT " + TODO_COLUMNS + " FROM todo WHERE user_id = ? ORDER BY created_at, id LIMIT ? OFFSET ?";
+    String SELECT_FIRST_TODOS = "SELECT " + TODO_COLUMNS + " FROM todo WHERE user_id = ? ORDER BY created_at, id LIMIT ?";
+    String SELECT_TODOS_AFTER_CURSOR = "SELECT " + TODO_COLUMNS + " FROM todo WHERE user_id = ? AND (created_at, id) > (?, ?) ORDER BY created_at, id LIMIT ?";
+    String SELECT_TODOS_FOR_EXPORT = "SELECT " + TODO_COLUMNS + " FROM todo WHERE user_id = ? ORDER BY created_at, id";
+    String SELECT_COMPLETED_TODOS = "SELECT " + TODO_COLUMNS + " FROM todo WHERE user_id = ? AND completed = true";
+    String SELECT_TODO_BY_ID = "SELECT " + TODO_COLUMNS + " FROM todo WHERE id = ? AND user_id = ?";
+    String SELECT_CHANGED_TODOS = "SELECT " + TODO_COLUMNS + ", change_xid::text, change_xid < horizon FROM todo, pg_snapshot_xmin(pg_current_snapshot()) horizon WHERE user_id = ? AND (change_xid, id) > (?::text::xid8, ?) ORDER BY change_xid, id LIMIT ?";
+    String SELECT_TODO_TOMBSTONES = "SELECT todo_id, change_xid::text, change_xid < horizon FROM todo_tombstone, pg_snapshot_xmin(pg_current_snapshot()) horizon WHERE user_id = ? AND (change_xid, todo_id) > (?::text::xid8, ?) ORDER BY change_xid, todo_id LIMIT ?";
+    String SEARCH_FIRST_TODOS = "SELECT " + TODO_COLUMNS + ", ts_rank(search_vector, tsq) AS rank FROM todo, websearch_to_tsquery('simple', ?) tsq WHERE user_id = ? AND search_vector @@ tsq ORDER BY rank DESC, id DESC LIMIT ?";
+    String SEARCH_TODOS_AFTER_CURSOR = "SELECT * FROM (SELECT " + TODO_COLUMNS + ", ts_rank(search_vector, tsq) AS rank FROM todo, websearch_to_tsquery('simple', ?) tsq WHERE user_id = ? AND search_vector @@ tsq) hits WHERE (rank, id) < (?::real, ?) ORDER BY rank DESC, id DESC LIMIT ?";
+    String SELECT_TODO_TITLES = "SELECT id, title FROM todo WHERE user_id = ?";
+    String SUGGEST_TODOS = "SELECT id, title FROM todo WHERE user_id = ? AND search_vector @@ to_tsquery('simple', ?) LIMIT ?";
+    String COPY_TODOS = "COPY todo (user_id, title, description) FROM STDIN WITH (FORMAT csv)";
+
+    TodoResponse saveTodo(TodoCreateRequest request, Long userId);
+
+    /**
+     * Updates the todo if it still has {@code expectedVersion}; a {@code null} version updates unconditionally.
+     */
+    Optional<TodoUpdateResult> updateTodo(TodoUpdateRequest request, Long expectedVersion, Long userId);
 
-    void saveTodo(TodoCreateRequest request, Long userId);
+    Optional<Long> findTodoVersion(Long toDoId, Long userId);
 
-    int updateTodo(TodoUpdateRequest request, Long userId);
+    List<Long> saveTodos(List<TodoCreateRequest> requests, Long userId);
+
+    int[] updateTodos(List<TodoUpdateRequest> requests, Long userId);
 
     Optional<TodoResponse> findTodoById(Long toDoId,Long userId);
 
     List<TodoResponse> allTodosByUserIdWithPagination(Long userId, int page, int size);
 
+    List<TodoResponse> allTodosByUserIdAfterCursor(Long userId, TodoCursor after, int size);
+
     List<TodoResponse> allTodosCompletedByUserId(Long userId);
+
+    List<TodoChange> todosChangedAfter(Long userId, long changeXid, long changedId, int size);
+
+    List<TodoTombstone> tombstonesAfter(Long userId, long changeXid, long deletedId, int size);
+
+    void forEachTodoByUserId(Long userId, Consumer<TodoResponse> action);
+
+    /**
+     * Full-text search over title and description, best match first; {@code after} continues from a previous page.
+     */
+    List<TodoSearchHit> searchTodos(Long userId, String query, TodoSearchCursor after, int size);
+
+    void forEachTodoTitle(Long userId, BiConsumer<Long, String> action);
+
+    /**
+     * Todos whose title has a word starting with each of {@code prefixes}, which must be lowercase letters and digits.
+     */
+    List<TodoSuggestion> suggestTodos(Long userId, List<String> prefixes, int limit);
+
+    long copyTodos(Iterator<TodoCreateRequest> requests, Long userId);
 }
@@ -1,78 +1,305 @@
 package com.emobile.springtodo.repository.todo;
 
+import com.emobile.springtodo.cache.TodoCacheKeys;
+import com.emobile.springtodo.config.MetricsConfig;
+import com.emobile.springtodo.dto.TodoChange;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoCursor;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchCursor;
+import com.emobile.springtodo.dto.TodoSearchHit;
+import com.emobile.springtodo.dto.TodoSuggestion;
+import com.emobile.springtodo.dto.TodoTombstone;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import com.emobile.springtodo.dto.TodoUpdateResult;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
 public class TodoRepositoryImpl implements TodoRepository {
     private final JdbcTemplate jdbcTemplate;
 
-    @Override
-    public void saveTodo(TodoCreateRequest request, Long userId) {
+    @Value("${todo.batch.chunk-size:500}")
+    private int batchChunkSize;
+    @Value("${todo.export.fetch-size:1000}")
+    private int exportFetchSize;
+    @Value("${todo.import.copy-buffer-size:65536}")
+    private int copyBufferSize;
 
-        jdbcTemplate.update(
-                INSERT_TODO, userId,
+    @Override
+    public TodoResponse saveTodo(TodoCreateRequest request, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.queryForObject(
+                INSERT_TODO_RETURNING,
+                TodoRowMapper.INSTANCE,
+                userId,
                 request.getTitle(),
                 request.getDescription(),
                 false,
-                LocalDateTime.now(),
-                LocalDateTime.now()
+                now,
+                now
         );
     }
 
     @Override
-    public int updateTodo(TodoUpdateRequest request, Long userId) {
-        return jdbcTemplate.update(
-                UPDATE_TODO,
-                request.getTitle(),
-                request.getDescription(),
-                request.isCompleted(),
-                LocalDateTime.now(),
-                request.getId(),
-                userId
-        );
+    public Optional<TodoUpdateResult> updateTodo(TodoUpdateRequest request, Long expectedVersion, Long userId) {
+        RowMapper<TodoUpdateResult> mapper = (rs, rowNum) ->
+                new TodoUpdateResult(TodoRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getBoolean(8));
+        List<TodoUpdateResult> todos = expectedVersion == null
+                ? jdbcTemplate.query(
+                        UPDATE_TODO_RETURNING,
+                        mapper,
+                        request.getId(),
+                        userId,
+                        request.getTitle(),
+                        request.getDescription(),
+                        request.isCompleted(),
+                        LocalDateTime.now(),
+                        request.getId(),
+                        userId)
+                : jdbcTemplate.query(
+                        UPDATE_TODO_IF_VERSION_RETURNING,
+                        mapper,
+                        request.getId(),
+                        userId,
+                        request.getTitle(),
+                        request.getDescription(),
+                        request.isCompleted(),
+                        LocalDateTime.now(),
+                        request.getId(),
+                        userId,
+                        expectedVersion);
+        return todos.stream().findFirst();
     }
 
+    @Override
+    public Optional<Long> findTodoVersion(Long toDoId, Long userId) {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_TODO_VERSION, Long.class, toDoId, userId);
+        return versions.stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> saveTodos(List<TodoCreateRequest> requests, Long userId) {
+        List<Long> ids = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            List<TodoCreateRequest> chunk = requests.subList(from, Math.min(from + batchChunkSize, requests.size()));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_TODO, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            TodoCreateRequest request = chunk.get(i);
+                            ps.setLong(1, userId);
+                            ps.setString(2, request.getTitle());
+                            ps.setString(3, request.getDescription());
+                            ps.setBoolean(4, false);
+                            ps.setTimestamp(5, now);
+                            ps.setTimestamp(6, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder
+            );
+            keyHolder.getKeyList().forEach(keys -> ids.add(((Number) keys.get("id")).longValue()));
+        }
+        return ids;
+    }
 
     @Override
-    @Cacheable(value = "pagedTodos", key = "#userId + '-' + #page + '-' + #size")
+    @Transactional
+    public int[] updateTodos(List<TodoUpdateRequest> requests, Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] chunkCounts = jdbcTemplate.batchUpdate(UPDATE_TODO, requests, batchChunkSize, (ps, request) -> {
+            ps.setString(1, request.getTitle());
+            ps.setString(2, request.getDescription());
+            ps.setBoolean(3, request.isCompleted());
+            ps.setTimestamp(4, now);
+            ps.setLong(5, request.getId());
+            ps.setLong(6, userId);
+        });
+        return Arrays.stream(chunkCounts).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    @Override
+    @Cacheable(value = TodoCacheKeys.PAGED_TODOS, key = "T(com.emobile.springtodo.cache.TodoCacheKeys).page(#userId, #page, #size)", sync = true)
+    @Transactional(readOnly = true)
     public List<TodoResponse> allTodosByUserIdWithPagination(Long userId, int page, int size) {
         int offset = (page - 1) * size;
         return jdbcTemplate.query(
                 SELECT_ALL_TODOS,
-                (rs, rowNum) -> mapTodoResponse(rs),
+                TodoRowMapper.INSTANCE,
                 userId,size,offset
         );
     }
 
     @Override
-    @Cacheable(value = "completedTodos", key = "#userId")
+    @Cacheable(value = TodoCacheKeys.PAGED_TODOS, key = "T(com.emobile.springtodo.cache.TodoCacheKeys).pageAfter(#userId, #after, #size)", sync = true)
+    @Transactional(readOnly = true)
+    public List<TodoResponse> allTodosByUserIdAfterCursor(Long userId, TodoCursor after, int size) {
+        if (after == null) {
+            return jdbcTemplate.query(
+                    SELECT_FIRST_TODOS,
+                    TodoRowMapper.INSTANCE,
+                    userId, size
+            );
+        }
+        return jdbcTemplate.query(
+                SELECT_TODOS_AFTER_CURSOR,
+                TodoRowMapper.INSTANCE,
+                userId, Timestamp.valueOf(after.createdAt()), after.id(), size
+        );
+    }
+
+    @Override
+    @Cacheable(value = TodoCacheKeys.COMPLETED_TODOS, key = "T(com.emobile.springtodo.cache.TodoCacheKeys).completed(#userId)", sync = true)
+    @Transactional(readOnly = true)
     public List<TodoResponse> allTodosCompletedByUserId(Long userId) {
         return jdbcTemplate.query(
                 SELECT_COMPLETED_TODOS,
-                (rs, rowNum) -> mapTodoResponse(rs),
+                TodoRowMapper.INSTANCE,
                 userId
         );
     }
 
     @Override
-    @Cacheable(value = "todos", key = "#toDoId")
+    public List<TodoChange> todosChangedAfter(Long userId, long changeXid, long changedId, int size) {
+        return jdbcTemplate.query(
+                SELECT_CHANGED_TODOS,
+                (rs, rowNum) -> new TodoChange(TodoRowMapper.INSTANCE.mapRow(rs, rowNum),
+                        Long.parseLong(rs.getString(8)), rs.getBoolean(9)),
+                userId, Long.toString(changeXid), changedId, size
+        );
+    }
+
+    @Override
+    public List<TodoTombstone> tombstonesAfter(Long userId, long changeXid, long deletedId, int size) {
+        return jdbcTemplate.query(
+                SELECT_TODO_TOMBSTONES,
+                (rs, rowNum) -> new TodoTombstone(rs.getLong(1), Long.parseLong(rs.getString(2)), rs.getBoolean(3)),
+                userId, Long.toString(changeXid), deletedId, size
+        );
+    }
+
+    @Override
+    public void forEachTodoByUserId(Long userId, Consumer<TodoResponse> action) {
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_TODOS_FOR_EXPORT,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(exportFetchSize);
+                    ps.setLong(1, userId);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> action.accept(TodoRowMapper.INSTANCE.mapRow(rs, 0))
+        );
+    }
+
+    @Override
+    public List<TodoSearchHit> searchTodos(Long userId, String query, TodoSearchCursor after, int size) {
+        RowMapper<TodoSearchHit> mapper = (rs, rowNum) ->
+                new TodoSearchHit(TodoRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getFloat(8));
+        if (after == null) {
+            return jdbcTemplate.query(SEARCH_FIRST_TODOS, mapper, query, userId, size);
+        }
+        return jdbcTemplate.query(SEARCH_TODOS_AFTER_CURSOR, mapper, query, userId, after.rank(), after.id(), size);
+    }
+
+    @Override
+    public List<TodoSuggestion> suggestTodos(Long userId, List<String> prefixes, int limit) {
+        // prefix match on words weighted A, which are the title's
+        String query = prefixes.stream().map(prefix -> prefix + ":*A").collect(Collectors.joining(" & "));
+        return jdbcTemplate.query(SUGGEST_TODOS,
+                (rs, rowNum) -> new TodoSuggestion(rs.getLong(1), rs.getString(2)),
+                userId, query, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTodoTitle(Long userId, BiConsumer<Long, String> action) {
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_TODO_TITLES,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(exportFetchSize);
+                    ps.setLong(1, userId);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> action.accept(rs.getLong(1), rs.getString(2))
+        );
+    }
+
+    @Override
+    @Transactional
+    public long copyTodos(Iterator<TodoCreateRequest> requests, Long userId) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_TODOS);
+            try {
+                StringBuilder rows = new StringBuilder(copyBufferSize + 1024);
+                while (requests.hasNext()) {
+                    TodoCreateRequest request = requests.next();
+                    rows.append(userId).append(',');
+                    appendCsvField(rows, request.getTitle());
+                    rows.append(',');
+                    appendCsvField(rows, request.getDescription());
+                    rows.append('\n');
+                    if (rows.length() >= copyBufferSize) {
+                        writeToCopy(copyIn, rows);
+                    }
+                }
+                writeToCopy(copyIn, rows);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    @Override
+    @Cacheable(value = TodoCacheKeys.TODOS, key = "T(com.emobile.springtodo.cache.TodoCacheKeys).todo(#userId, #toDoId)", sync = true)
+    @Transactional(readOnly = true)
     public Optional<TodoResponse> findTodoById(Long toDoId, Long userId) {
         List<TodoResponse> todos = jdbcTemplate.query(
                 SELECT_TODO_BY_ID,
-                (rs, rowNum) -> mapTodoResponse(rs),
+                TodoRowMapper.INSTANCE,
                 toDoId, userId
         );
         return todos.stream().findFirst();
@@ -81,12 +308,28 @@ public class TodoRepositoryImpl implements TodoRepository {
 
 
 
-    private TodoResponse mapTodoResponse(ResultSet rs) throws SQLException {
-        return new TodoResponse(rs.getLong("id"),
-                rs.getString("title"),
-                rs.getString("description"),
-                rs.getBoolean("completed"),
-                rs.getTimestamp("created_at").toLocalDateTime(),
-                rs.getTimestamp("updated_at").toLocalDateTime());
+    private static void writeToCopy(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    /**
+     * In COPY's CSV format an unquoted empty field is NULL, so empty strings are always quoted.
+     */
+    private static void appendCsvField(StringBuilder rows, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            rows.append(value);
+            return;
+        }
+        rows.append('"').append(value.replace("\"", "\"\"")).append('"');
     }
 }
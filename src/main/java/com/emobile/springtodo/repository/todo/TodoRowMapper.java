@@ -0,0 +1,37 @@
+package com.emobile.springtodo.repository.todo;
+
+import com.emobile.springtodo.dto.TodoResponse;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row selected with {@link TodoRepository#TODO_COLUMNS} by column position, so no label is
+ * resolved per row. The indexes below must follow the order of that column list.
+ */
+public final class TodoRowMapper implements RowMapper<TodoResponse> {
+    public static final TodoRowMapper INSTANCE = new TodoRowMapper();
+
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int COMPLETED = 4;
+    private static final int CREATED_AT = 5;
+    private static final int UPDATED_AT = 6;
+    private static final int VERSION = 7;
+
+    private TodoRowMapper() {
+    }
+
+    @Override
+    public TodoResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new TodoResponse(rs.getLong(ID),
+                rs.getString(TITLE),
+                rs.getString(DESCRIPTION),
+                rs.getBoolean(COMPLETED),
+                rs.getTimestamp(CREATED_AT).toLocalDateTime(),
+                rs.getTimestamp(UPDATED_AT).toLocalDateTime(),
+                rs.getLong(VERSION));
+    }
+}
@@ -1,34 +1,132 @@
 package com.emobile.springtodo.security;
 
-import io.jsonwebtoken.Claims;
+import com.emobile.springtodo.config.ExecutionModeConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    static final String PARSE_TIMER = "todo.auth.jwt.parse";
+
     @Value("${jwt.secret}")
     private  String secret;
     @Value("${jwt.expiration}")
     private long expiration;
+    @Value("${jwt.claims-cache.maximum-size:100000}")
+    private long claimsCacheMaximumSize;
+    @Autowired
+    @Qualifier(ExecutionModeConfig.CACHE_EXECUTOR)
+    private Executor cacheExecutor;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, VerifiedToken> verifiedTokens;
+    private volatile Timer cachedParseTimer = parseTimer(new CompositeMeterRegistry(), "cache");
+    private volatile Timer verifiedParseTimer = parseTimer(new CompositeMeterRegistry(), "signature");
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaximumSize)
+                .executor(cacheExecutor)
+                .recordStats()
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, VerifiedToken token, long currentTime) {
+                        long millisLeft = token.expiration().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Times claim extraction by where the claims came from, so the cost of signature checks on cache misses
+     * is visible apart from the hashing every request pays.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwtClaims", Tags.of("tier", "l1"));
+        cachedParseTimer = parseTimer(registry, "cache");
+        verifiedParseTimer = parseTimer(registry, "signature");
+    }
+
+    private static Timer parseTimer(MeterRegistry registry, String source) {
+        return Timer.builder(PARSE_TIMER)
+                .description("Time to resolve the claims of a bearer token")
+                .tag("source", source)
+                .register(registry);
+    }
 
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+
+        if (userDetails instanceof CustomUserDetails customUserDetails && customUserDetails.getUserId() != null) {
+            builder.claim(CLAIM_USER_ID, customUserDetails.getUserId());
+        }
+        userDetails.getAuthorities().stream()
+                .findFirst()
+                .map(GrantedAuthority::getAuthority)
+                .ifPresent(role -> builder.claim(CLAIM_ROLE, role));
+
+        return builder
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
@@ -40,28 +138,64 @@ public class JwtUtil {
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).subject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        Instant expiration = parseToken(token).expiration();
+        return expiration == null ? null : Date.from(expiration);
+    }
+
+    /**
+     * Verifies the signature and expiry of {@code token} and returns the claims requests use.
+     * Verified tokens are cached by token hash until they expire.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken parseToken(String token) {
+        long started = System.nanoTime();
+        String tokenHash = hash(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(tokenHash);
+        if (verified != null) {
+            cachedParseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return verified;
+        }
+        try {
+            verified = VerifiedToken.of(jwtParser.parseClaimsJws(token).getBody());
+        } finally {
+            verifiedParseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (verified.expiration() != null) {
+            verifiedTokens.put(tokenHash, verified);
+        }
+        return verified;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Builds the authenticated principal straight from a verified token, or returns {@code null}
+     * for tokens issued without a user id claim.
+     */
+    public CustomUserDetails toUserDetails(VerifiedToken token) {
+        if (token.userId() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = token.role() == null
+                ? List.of()
+                : List.of(new SimpleGrantedAuthority(token.role()));
+        return new CustomUserDetails(token.userId(), token.subject(), "", authorities);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parseToken(token).isExpired();
     }
 
 }
@@ -0,0 +1,199 @@
+package com.emobile.springtodo.security;
+
+import com.emobile.springtodo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt on a pool sized to the CPU count, so a login burst costs at most that many cores and never
+ * occupies the request threads that serve todos. When the queue is full, callers get a
+ * {@link TooManyRequestsException} straight away instead of waiting in line.
+ * <p>
+ * Hashing time is published as {@code todo.auth.password} per operation, alongside the queue depth and the
+ * number of rejected requests.
+ */
+@Slf4j
+@Component
+public class PasswordHashingService implements MeterBinder {
+    static final String HASHING_TIMER = "todo.auth.password";
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final Duration timeout;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private volatile Timer encodeTimer = hashingTimer(new CompositeMeterRegistry(), "encode");
+    private volatile Timer matchesTimer = hashingTimer(new CompositeMeterRegistry(), "matches");
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${auth.bcrypt.strength:10}") int strength,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${auth.hashing.timeout:5s}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.timeout = timeout;
+        this.queueCapacity = queueCapacity;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> timed(encodeTimer, () -> passwordEncoder.encode(rawPassword))));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> timed(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    /**
+     * Hashes in the background; the returned future fails with {@link TooManyRequestsException} if the pool is saturated.
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(timed(encodeTimer, () -> passwordEncoder.encode(rawPassword)));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new TooManyRequestsException("Password hashing queue is full"));
+        }
+        return result;
+    }
+
+    /**
+     * True when the stored hash was produced with a different cost factor than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public PasswordHashingStatistics statistics() {
+        long count = completed.sum();
+        return new PasswordHashingStatistics(
+                count,
+                rejected.sum(),
+                count == 0 ? 0 : totalNanos.sum() / 1e6 / count,
+                maxNanos.get() / 1e6,
+                executor.getQueue().size(),
+                queueCapacity
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encodeTimer = hashingTimer(registry, "encode");
+        matchesTimer = hashingTimer(registry, "matches");
+        FunctionCounter.builder("todo.auth.password.rejected", rejected, LongAdder::sum)
+                .description("Hashing requests turned away because the pool was saturated")
+                .register(registry);
+        Gauge.builder("todo.auth.password.queued", executor, pool -> pool.getQueue().size())
+                .description("Hashing requests waiting for a thread")
+                .register(registry);
+    }
+
+    private static Timer hashingTimer(MeterRegistry registry, String operation) {
+        return Timer.builder(HASHING_TIMER)
+                .description("BCrypt time per password operation, excluding time spent queued")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many authentication requests, retry later");
+        }
+    }
+
+    private <T> T timed(Timer timer, Callable<T> task) throws Exception {
+        long started = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            completed.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("Too many authentication requests, retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bcrypt-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
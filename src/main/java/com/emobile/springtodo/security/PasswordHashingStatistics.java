@@ -0,0 +1,5 @@
+package com.emobile.springtodo.security;
+
+public record PasswordHashingStatistics(long completed, long rejected, double meanMillis, double maxMillis,
+                                        int queued, int queueCapacity) {
+}
@@ -0,0 +1,54 @@
+package com.emobile.springtodo.security;
+
+import com.emobile.springtodo.config.ExecutionModeConfig;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Revoked token ids, kept in Redis until the token would have expired anyway.
+ * Lookups are cached per node for {@code jwt.denylist.cache-ttl}, so a revocation takes at most that long to apply everywhere.
+ * Misses load on the cache executor rather than inside the cache's compute lock, which would pin a virtual thread
+ * to its carrier for the whole Redis round trip.
+ */
+@Component
+public class TokenDenylist {
+    private static final String KEY_PREFIX = "jwt:denylist:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final AsyncLoadingCache<String, Boolean> revoked;
+
+    public TokenDenylist(StringRedisTemplate redisTemplate,
+                         @Value("${jwt.denylist.cache-ttl:5s}") Duration cacheTtl,
+                         @Value("${jwt.denylist.cache-size:100000}") long cacheSize,
+                         @Qualifier(ExecutionModeConfig.CACHE_EXECUTOR) Executor cacheExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.revoked = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .executor(cacheExecutor)
+                .buildAsync(tokenId -> Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenId)));
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        return token.id() != null && revoked.get(token.id()).join();
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.id() == null) {
+            return;
+        }
+        long ttlMillis = token.expiration().toEpochMilli() - System.currentTimeMillis();
+        if (ttlMillis > 0) {
+            redisTemplate.opsForValue().set(KEY_PREFIX + token.id(), "1", Duration.ofMillis(ttlMillis));
+        }
+        revoked.put(token.id(), CompletableFuture.completedFuture(Boolean.TRUE));
+    }
+}
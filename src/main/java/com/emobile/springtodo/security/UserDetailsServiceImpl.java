@@ -1,14 +1,20 @@
 package com.emobile.springtodo.security;
 
+import com.emobile.springtodo.datasource.ReplicaRoutingDataSource;
 import com.emobile.springtodo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Builds principals for already verified tokens. Passwords are checked by {@code AuthServiceImpl},
+ * so the hash is never loaded here.
+ */
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -17,13 +23,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        return ReplicaRoutingDataSource.onReplica(() -> userRepository.findIdentityByUsername(username))
                 .map(user -> new CustomUserDetails(
-                        user.getId(),
-                        user.getUsername(),
-                        user.getPassword(),
-                        new ArrayList<>()
-
+                        user.id(),
+                        user.username(),
+                        "",
+                        List.of(new SimpleGrantedAuthority(user.role()))
                 ))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
@@ -0,0 +1,28 @@
+package com.emobile.springtodo.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * The claims of a verified token that requests read, copied out of the parsed {@link Claims} map. Verified tokens
+ * are cached and shared between requests, so unlike the map they cannot be changed by one request under another.
+ *
+ * @param userId     the {@value JwtUtil#CLAIM_USER_ID} claim, {@code null} for tokens issued without it
+ * @param expiration {@code null} for tokens without an expiry
+ */
+public record VerifiedToken(String id, String subject, Long userId, String role, Instant expiration) {
+
+    static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get(JwtUtil.CLAIM_USER_ID, Long.class),
+                claims.get(JwtUtil.CLAIM_ROLE, String.class),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.isBefore(Instant.now());
+    }
+}
@@ -8,4 +8,5 @@ public interface AuthService {
     AuthResponse register(UserRegistrationRequest request);
     AuthResponse login(AuthRequest request);
     AuthResponse refreshAccessToken(String currentToken);
+    void logout(String token);
 }
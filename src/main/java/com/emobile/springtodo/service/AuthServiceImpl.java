@@ -1,83 +1,127 @@
 package com.emobile.springtodo.service;
 
+import com.emobile.springtodo.config.MetricsConfig;
+import com.emobile.springtodo.datasource.ReplicaRoutingDataSource;
 import com.emobile.springtodo.entity.User;
 import com.emobile.springtodo.dto.AuthRequest;
 import com.emobile.springtodo.dto.AuthResponse;
+import com.emobile.springtodo.dto.UserIdentity;
 import com.emobile.springtodo.dto.UserRegistrationRequest;
 import com.emobile.springtodo.exception.UserAuthException;
 import com.emobile.springtodo.repository.UserRepository;
 import com.emobile.springtodo.security.CustomUserDetails;
 import com.emobile.springtodo.security.JwtUtil;
+import com.emobile.springtodo.security.PasswordHashingService;
+import com.emobile.springtodo.security.TokenDenylist;
+import com.emobile.springtodo.security.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(MetricsConfig.AUTH_TIMER)
 public class AuthServiceImpl implements AuthService {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenDenylist tokenDenylist;
 
     @Override
     public AuthResponse register(UserRegistrationRequest request) {
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
+        if (userRepository.existsByUsername(request.getUsername())) {
             throw new UserAuthException("User already exists");
         }
 
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setRole("USER");
         userRepository.save(user);
 
-        String token = jwtUtil.generateToken(new CustomUserDetails(user.getId(),
-                user.getUsername(), user.getPassword(), new ArrayList<>())
-        );
+        String token = jwtUtil.generateToken(toUserDetails(user));
         return new AuthResponse(token);
     }
 
     @Override
     public AuthResponse login(AuthRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
+        User user = ReplicaRoutingDataSource.onReplica(() -> userRepository.findByUsername(request.getUsername()))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new UserAuthException("Invalid credentials");
         }
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            rehashPassword(user, request.getPassword());
+        }
 
-        String token = jwtUtil.generateToken(new CustomUserDetails(user.getId(),
-                user.getUsername(), user.getPassword(), new ArrayList<>())
-        );
+        String token = jwtUtil.generateToken(toUserDetails(user));
         return new AuthResponse(token);
     }
 
     @Override
     public AuthResponse refreshAccessToken(String refreshToken) {
-        String username = jwtUtil.extractUsername(refreshToken);
-        log.error(username);
-        if (username == null || jwtUtil.isTokenExpired(refreshToken)) {
+        VerifiedToken verified = parseValidToken(refreshToken, "Invalid refresh token");
+        if (verified.subject() == null) {
             throw new UserAuthException("Invalid refresh token");
         }
 
-        User user = userRepository.findByUsername(username)
+        UserIdentity user = ReplicaRoutingDataSource
+                .onReplica(() -> userRepository.findIdentityByUsername(verified.subject()))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        UserDetails userDetails = new CustomUserDetails(user.getId(),
-                user.getUsername(), user.getPassword(), new ArrayList<>()
-        );
-
-        String newAccessToken = jwtUtil.generateToken(userDetails);
+        String newAccessToken = jwtUtil.generateToken(toUserDetails(user));
 
         return new AuthResponse(newAccessToken);
     }
 
+    @Override
+    public void logout(String token) {
+        tokenDenylist.revoke(parseValidToken(token, "Invalid token"));
+    }
+
+    private VerifiedToken parseValidToken(String token, String errorMessage) {
+        VerifiedToken verified;
+        try {
+            verified = jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UserAuthException(errorMessage);
+        }
+        if (tokenDenylist.isRevoked(verified)) {
+            throw new UserAuthException(errorMessage);
+        }
+        return verified;
+    }
+
+    /**
+     * Brings the stored hash to the configured cost without making the login wait for a second BCrypt run.
+     * If the pool is busy the upgrade is simply retried on a later login.
+     */
+    private void rehashPassword(User user, String rawPassword) {
+        passwordHashingService.encodeAsync(rawPassword)
+                .thenAccept(hash -> userRepository.updatePassword(user.getId(), hash))
+                .exceptionally(e -> {
+                    log.warn("Could not re-hash password for user {}: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
+
+    private CustomUserDetails toUserDetails(User user) {
+        return toUserDetails(new UserIdentity(user.getId(), user.getUsername(), user.getRole()));
+    }
+
+    private CustomUserDetails toUserDetails(UserIdentity user) {
+        return new CustomUserDetails(user.id(), user.username(), "",
+                List.of(new SimpleGrantedAuthority(user.role())));
+    }
+
 
 }
@@ -0,0 +1,161 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.cache.TodoCacheKeys;
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.cache.TwoTierCache;
+import com.emobile.springtodo.cache.TwoTierCacheManager;
+import com.emobile.springtodo.datasource.ReadYourWritesTracker;
+import com.emobile.springtodo.dto.TodoResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the todo caches in line with writes. Single-row writes patch the cached entries with the persisted row,
+ * each patch an atomic read-modify-write of the Redis entry so concurrent writers cannot lose each other's rows;
+ * bulk writes evict them. Either way the user's {@link TodoChangeMarker} is replaced for delta sync, and with
+ * replica routing on the user's reads are pinned to the primary for a while.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoCacheInvalidator {
+    /**
+     * The order of {@code SELECT_ALL_TODOS} and the cursor queries.
+     */
+    private static final Comparator<TodoResponse> PAGE_ORDER = Comparator
+            .comparing(TodoResponse::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(TodoResponse::getId);
+
+    private final TwoTierCacheManager cacheManager;
+    private final TodoChangeMarker changeMarker;
+    private final ObjectProvider<ReadYourWritesTracker> readYourWrites;
+
+    public void evictUserLists(Long userId) {
+        cacheManager.evictOwner(TodoCacheKeys.PAGED_TODOS, String.valueOf(userId));
+        cacheManager.getCache(TodoCacheKeys.COMPLETED_TODOS).evict(TodoCacheKeys.completed(userId));
+        recordWrite(userId);
+    }
+
+    public void evictTodo(Long userId, Long todoId) {
+        cacheManager.getCache(TodoCacheKeys.TODOS).evict(TodoCacheKeys.todo(userId, todoId));
+    }
+
+    public void evictTodos(Long userId, Collection<Long> todoIds) {
+        cacheManager.getCache(TodoCacheKeys.TODOS).evictAll(todoIds.stream()
+                .map(todoId -> TodoCacheKeys.todo(userId, todoId))
+                .toList());
+    }
+
+    /**
+     * Stores the persisted row unless the cache already holds a later version, which a concurrent update of the
+     * same todo may have written first.
+     */
+    public void putTodo(Long userId, TodoResponse todo) {
+        cacheManager.getCache(TodoCacheKeys.TODOS).patch(TodoCacheKeys.todo(userId, todo.getId()), cached ->
+                cached instanceof TodoResponse current && current.getVersion() > todo.getVersion() ? cached : todo);
+    }
+
+    /**
+     * A new todo normally sorts after every existing one, so it belongs only on the last page: full pages are left
+     * alone, a partly filled page gets it appended, and an empty page, which may or may not be the next one, is
+     * evicted. Its {@code created_at} is the start of the inserting transaction, though, so a todo that commits late
+     * can sort before rows already cached; every page after it shifts then, and the user's pages are all evicted.
+     */
+    public void addToUserLists(Long userId, TodoResponse todo) {
+        TwoTierCache pages = cacheManager.getCache(TodoCacheKeys.PAGED_TODOS);
+        AtomicBoolean shifted = new AtomicBoolean();
+        for (String key : pages.ownerKeys(String.valueOf(userId))) {
+            pages.patch(key, cached -> {
+                if (!(cached instanceof List<?> list)) {
+                    return cached;
+                }
+                List<TodoResponse> page = todoList(list);
+                if (page.isEmpty()) {
+                    return null;
+                }
+                if (PAGE_ORDER.compare(todo, page.get(page.size() - 1)) < 0) {
+                    shifted.set(true);
+                    return null;
+                }
+                if (page.size() >= TodoCacheKeys.pageSize(key)) {
+                    return cached;
+                }
+                List<TodoResponse> patched = new ArrayList<>(page);
+                patched.add(todo);
+                return patched;
+            });
+        }
+        if (shifted.get()) {
+            cacheManager.evictOwner(TodoCacheKeys.PAGED_TODOS, String.valueOf(userId));
+        }
+        patchCompleted(userId, todo);
+        recordWrite(userId);
+    }
+
+    /**
+     * An update never moves a todo between pages, since they are ordered by creation, so it is replaced where
+     * cached; the completed list gains or loses it with its status.
+     */
+    public void patchUserLists(Long userId, TodoResponse todo) {
+        TwoTierCache pages = cacheManager.getCache(TodoCacheKeys.PAGED_TODOS);
+        for (String key : pages.ownerKeys(String.valueOf(userId))) {
+            pages.patch(key, cached -> {
+                if (!(cached instanceof List<?> list)) {
+                    return cached;
+                }
+                List<TodoResponse> patched = replace(todoList(list), todo);
+                return patched == null ? cached : patched;
+            });
+        }
+        patchCompleted(userId, todo);
+        recordWrite(userId);
+    }
+
+    private void recordWrite(Long userId) {
+        changeMarker.touch(userId);
+        readYourWrites.ifAvailable(tracker -> tracker.recordWrite(userId));
+    }
+
+    private void patchCompleted(Long userId, TodoResponse todo) {
+        cacheManager.getCache(TodoCacheKeys.COMPLETED_TODOS).patch(TodoCacheKeys.completed(userId), cached -> {
+            if (!(cached instanceof List<?> list)) {
+                return cached;
+            }
+            List<TodoResponse> patched = new ArrayList<>(todoList(list));
+            boolean removed = patched.removeIf(item -> Objects.equals(item.getId(), todo.getId()));
+            if (todo.isCompleted()) {
+                patched.add(todo);
+            } else if (!removed) {
+                return cached;
+            }
+            return patched;
+        });
+    }
+
+    /**
+     * Returns a copy of {@code page} with {@code todo} swapped in, or {@code null} when it is not on the page.
+     */
+    private static List<TodoResponse> replace(List<TodoResponse> page, TodoResponse todo) {
+        for (int i = 0; i < page.size(); i++) {
+            if (Objects.equals(page.get(i).getId(), todo.getId())) {
+                List<TodoResponse> patched = new ArrayList<>(page);
+                patched.set(i, todo);
+                return patched;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TodoResponse> todoList(List<?> list) {
+        return (List<TodoResponse>) list;
+    }
+}
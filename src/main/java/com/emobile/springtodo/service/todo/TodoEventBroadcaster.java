@@ -0,0 +1,160 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.config.ExecutionModeConfig;
+import com.emobile.springtodo.dto.TodoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Pushes todo events to the SSE streams open on this node. Every event goes through Redis pub/sub on
+ * {@code channel}, including ones raised here, so each node delivers to its own streams from a single path.
+ * <p>
+ * Messages are {@code userId\ntype\njson}: a node with no stream for the user drops the message without parsing
+ * it, and the JSON is forwarded to clients as is. Streams are async requests, so an idle one holds no thread.
+ */
+@Slf4j
+@Component
+public class TodoEventBroadcaster implements MessageListener, InitializingBean {
+
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final Executor streamExecutor;
+    private final String channel;
+    private final Duration timeout;
+    private final int bufferSize;
+
+    private final Map<Long, Set<TodoStreamConnection>> connections = new ConcurrentHashMap<>();
+
+    public TodoEventBroadcaster(StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                ObjectMapper objectMapper,
+                                @Qualifier(ExecutionModeConfig.STREAM_EXECUTOR) Executor streamExecutor,
+                                @Value("${todo.stream.channel:todo-events}") String channel,
+                                @Value("${todo.stream.timeout:30m}") Duration timeout,
+                                @Value("${todo.stream.buffer-size:32}") int bufferSize) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+        this.channel = channel;
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        TodoStreamConnection connection = new TodoStreamConnection(emitter, bufferSize, streamExecutor,
+                closed -> remove(userId, closed));
+        emitter.onCompletion(connection::closed);
+        emitter.onTimeout(connection::closed);
+        emitter.onError(e -> connection.closed());
+        connections.compute(userId, (id, userConnections) -> {
+            Set<TodoStreamConnection> set = userConnections == null ? ConcurrentHashMap.newKeySet() : userConnections;
+            set.add(connection);
+            return set;
+        });
+        connection.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    /**
+     * Publishes after the surrounding transaction commits, or right away outside of one.
+     */
+    public void publish(Long userId, TodoEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(userId, event);
+                }
+            });
+            return;
+        }
+        send(userId, event);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int userEnd = body.indexOf(SEPARATOR);
+        int typeEnd = userEnd < 0 ? -1 : body.indexOf(SEPARATOR, userEnd + 1);
+        if (typeEnd < 0) {
+            return;
+        }
+        Set<TodoStreamConnection> userConnections;
+        try {
+            userConnections = connections.get(Long.parseLong(body.substring(0, userEnd)));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (userConnections == null) {
+            return;
+        }
+        String name = body.substring(userEnd + 1, typeEnd).toLowerCase(Locale.ROOT);
+        String json = body.substring(typeEnd + 1);
+        for (TodoStreamConnection connection : userConnections) {
+            connection.offer(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * Keeps idle streams alive through proxies and finds dead or stalled clients.
+     */
+    @Scheduled(initialDelayString = "${todo.stream.heartbeat-interval:15s}",
+            fixedDelayString = "${todo.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        connections.values().forEach(userConnections -> userConnections.forEach(connection ->
+                connection.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    public int openStreams() {
+        return connections.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void send(Long userId, TodoEvent event) {
+        try {
+            String json = objectMapper.writeValueAsString(event);
+            redisTemplate.convertAndSend(channel, userId + SEPARATOR + event.type() + SEPARATOR + json);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish {} event for user {}", event.type(), userId, e);
+        }
+    }
+
+    private void remove(Long userId, TodoStreamConnection connection) {
+        connections.computeIfPresent(userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+}
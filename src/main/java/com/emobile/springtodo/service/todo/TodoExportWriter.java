@@ -0,0 +1,99 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes todos one at a time to an output stream; nothing but the current row is held in memory.
+ */
+public interface TodoExportWriter extends Closeable {
+
+    void write(TodoResponse todo) throws IOException;
+
+    static TodoExportWriter of(TodoFileFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(out, objectMapper);
+            case CSV -> new Csv(out);
+        };
+    }
+
+    final class Ndjson implements TodoExportWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        Ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            // every record ends its own line, so an export without todos is empty rather than a lone newline
+            this.generator.setRootValueSeparator(null);
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(TodoResponse todo) throws IOException {
+            writer.writeValue(generator, todo);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+
+    final class Csv implements TodoExportWriter {
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            this.writer.write("id,title,description,completed,created_at,updated_at\n");
+        }
+
+        @Override
+        public void write(TodoResponse todo) throws IOException {
+            writer.write(String.valueOf(todo.getId()));
+            writer.write(',');
+            writeField(todo.getTitle());
+            writer.write(',');
+            writeField(todo.getDescription());
+            writer.write(',');
+            writer.write(String.valueOf(todo.isCompleted()));
+            writer.write(',');
+            writeField(todo.getCreatedAt() == null ? null : todo.getCreatedAt().toString());
+            writer.write(',');
+            writeField(todo.getUpdatedAt() == null ? null : todo.getUpdatedAt().toString());
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
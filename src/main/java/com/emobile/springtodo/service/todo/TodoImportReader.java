@@ -0,0 +1,216 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.exception.UnsupportedFormatException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads todos one record at a time from an uploaded file; nothing but the current record is held in memory.
+ */
+public interface TodoImportReader extends Closeable {
+
+    /**
+     * Returns the next record, or {@code null} once the input is exhausted.
+     *
+     * @throws MalformedRecordException if the current record cannot be parsed; the reader moves past it
+     */
+    TodoCreateRequest next() throws IOException;
+
+    /**
+     * Line on which the record last returned by {@link #next()} started.
+     */
+    long line();
+
+    static TodoImportReader of(TodoFileFormat format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 16 * 1024);
+        return switch (format) {
+            case NDJSON -> new Ndjson(reader, objectMapper);
+            case CSV -> new Csv(reader);
+        };
+    }
+
+    class MalformedRecordException extends IOException {
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    final class Ndjson implements TodoImportReader {
+        private final BufferedReader reader;
+        private final ObjectReader objectReader;
+        private long line;
+
+        Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectReader = objectMapper.readerFor(TodoCreateRequest.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        }
+
+        @Override
+        public TodoCreateRequest next() throws IOException {
+            String value;
+            do {
+                value = reader.readLine();
+                if (value == null) {
+                    return null;
+                }
+                line++;
+            } while (value.isBlank());
+
+            try {
+                return objectReader.readValue(value);
+            } catch (JsonProcessingException e) {
+                throw new MalformedRecordException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row. Columns are matched by name, so files produced by the CSV export
+     * can be imported back as is; columns other than {@code title} and {@code description} are ignored.
+     */
+    final class Csv implements TodoImportReader {
+        private final BufferedReader reader;
+        private final int titleColumn;
+        private final int descriptionColumn;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private long nextLine = 1;
+        private long line;
+        private boolean eof;
+
+        Csv(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord() ? List.copyOf(fields) : List.of();
+            this.titleColumn = indexOf(header, "title");
+            this.descriptionColumn = indexOf(header, "description");
+            if (titleColumn < 0) {
+                throw new UnsupportedFormatException("CSV header must contain a title column");
+            }
+        }
+
+        @Override
+        public TodoCreateRequest next() throws IOException {
+            do {
+                if (!readRecord()) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+            if (fields.size() <= titleColumn) {
+                throw new MalformedRecordException("Expected at least " + (titleColumn + 1) + " columns, got " + fields.size());
+            }
+            String description = descriptionColumn >= 0 && descriptionColumn < fields.size()
+                    ? fields.get(descriptionColumn)
+                    : null;
+            return new TodoCreateRequest(fields.get(titleColumn), description == null || description.isEmpty() ? null : description);
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            if (eof) {
+                return false;
+            }
+            line = nextLine;
+
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            field.append('"');
+                            continue;
+                        }
+                        quoted = false;
+                        if (following == -1) {
+                            break;
+                        }
+                        reader.reset();
+                        continue;
+                    }
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    nextLine++;
+                    fields.add(trimCarriageReturn());
+                    return true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            eof = true;
+            if (quoted) {
+                throw new MalformedRecordException("Unterminated quoted field");
+            }
+            if (!any) {
+                return false;
+            }
+            fields.add(trimCarriageReturn());
+            return true;
+        }
+
+        private String trimCarriageReturn() {
+            int length = field.length();
+            if (length > 0 && field.charAt(length - 1) == '\r') {
+                field.setLength(length - 1);
+            }
+            return field.toString();
+        }
+
+        private static int indexOf(List<String> header, String column) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).equals(column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
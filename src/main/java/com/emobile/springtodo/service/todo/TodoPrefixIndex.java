@@ -0,0 +1,185 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.config.ExecutionModeConfig;
+import com.emobile.springtodo.dto.TodoSuggestion;
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user in-memory index of title words for type-ahead, so a keystroke does not reach PostgreSQL.
+ * <p>
+ * A user's first query starts loading their index in the background and, like every query until it is ready, is
+ * answered from the full-text index in PostgreSQL instead. An index remembers the {@link TodoChangeMarker} it was
+ * built at. Writes on this node patch it in place; when the marker has moved on otherwise (bulk writes, other nodes)
+ * the stale index keeps answering while a fresh one is loaded in the background. {@code refresh-after-write} bounds
+ * how long a change missed between those two checks can go unnoticed.
+ */
+@Component
+public class TodoPrefixIndex {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final TodoRepository todoRepository;
+    private final TodoChangeMarker changeMarker;
+    private final AsyncLoadingCache<Long, UserIndex> indexes;
+
+    public TodoPrefixIndex(TodoRepository todoRepository,
+                           TodoChangeMarker changeMarker,
+                           @Qualifier(ExecutionModeConfig.CACHE_EXECUTOR) Executor refreshExecutor,
+                           @Value("${todo.search.prefix-index.max-todos:2000000}") long maxTodos,
+                           @Value("${todo.search.prefix-index.expire-after-access:30m}") Duration expireAfterAccess,
+                           @Value("${todo.search.prefix-index.refresh-after-write:10m}") Duration refreshAfterWrite) {
+        this.todoRepository = todoRepository;
+        this.changeMarker = changeMarker;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxTodos)
+                .weigher((Long userId, UserIndex index) -> Math.max(1, index.size()))
+                .expireAfterAccess(expireAfterAccess)
+                .refreshAfterWrite(refreshAfterWrite)
+                .executor(refreshExecutor)
+                .buildAsync(this::load);
+    }
+
+    /**
+     * Todos whose title has a word starting with every word of {@code prefix}; the last word may be incomplete.
+     */
+    public List<TodoSuggestion> suggest(Long userId, String prefix, int limit) {
+        List<String> words = words(prefix);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        UserIndex index = loaded(indexes.get(userId));
+        if (index == null) {
+            return todoRepository.suggestTodos(userId, words, limit);
+        }
+        if (!Objects.equals(index.marker, changeMarker.current(userId))) {
+            indexes.synchronous().refresh(userId);
+        }
+        return index.suggest(words, limit);
+    }
+
+    /**
+     * Starts loading {@code userId}'s index unless it is loaded or loading already.
+     */
+    public CompletableFuture<Void> warm(Long userId) {
+        return indexes.get(userId).thenAccept(index -> { });
+    }
+
+    /**
+     * Patches a loaded index after a write on this node. An index still loading reads the new row or the moved
+     * marker itself, and users without one are left to load on their next query.
+     */
+    public void put(Long userId, Long todoId, String title) {
+        UserIndex index = loaded(indexes.getIfPresent(userId));
+        if (index != null) {
+            index.put(todoId, title);
+            index.marker = changeMarker.current(userId);
+        }
+    }
+
+    private static UserIndex loaded(CompletableFuture<UserIndex> index) {
+        return index != null && index.isDone() && !index.isCompletedExceptionally() ? index.join() : null;
+    }
+
+    private UserIndex load(Long userId) {
+        UserIndex index = new UserIndex();
+        index.marker = changeMarker.current(userId);
+        todoRepository.forEachTodoTitle(userId, index::put);
+        return index;
+    }
+
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    static final class UserIndex {
+        private final NavigableMap<String, Set<Long>> ids = new ConcurrentSkipListMap<>();
+        private final Map<Long, String> titles = new ConcurrentHashMap<>();
+        private volatile String marker;
+
+        int size() {
+            return titles.size();
+        }
+
+        void put(Long todoId, String title) {
+            String previous = titles.put(todoId, title);
+            if (previous != null) {
+                for (String word : words(previous)) {
+                    ids.computeIfPresent(word, (key, wordIds) -> {
+                        wordIds.remove(todoId);
+                        return wordIds.isEmpty() ? null : wordIds;
+                    });
+                }
+            }
+            for (String word : words(title)) {
+                ids.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(todoId);
+            }
+        }
+
+        /**
+         * Walks the ids under the last word in word order; the other words are checked against each candidate's
+         * title, which keeps a short prefix on a large index from materialising every match.
+         */
+        List<TodoSuggestion> suggest(List<String> words, int limit) {
+            String last = words.get(words.size() - 1);
+            List<String> others = words.subList(0, words.size() - 1);
+            List<TodoSuggestion> suggestions = new ArrayList<>(limit);
+            Set<Long> seen = new HashSet<>();
+            for (Set<Long> wordIds : ids.subMap(last, true, last + Character.MAX_VALUE, false).values()) {
+                for (Long todoId : wordIds) {
+                    String title = titles.get(todoId);
+                    if (title == null || !seen.add(todoId) || !startsWords(title, others)) {
+                        continue;
+                    }
+                    suggestions.add(new TodoSuggestion(todoId, title));
+                    if (suggestions.size() == limit) {
+                        return suggestions;
+                    }
+                }
+            }
+            return suggestions;
+        }
+
+        private static boolean startsWords(String title, List<String> prefixes) {
+            if (prefixes.isEmpty()) {
+                return true;
+            }
+            List<String> titleWords = words(title);
+            for (String prefix : prefixes) {
+                if (titleWords.stream().noneMatch(word -> word.startsWith(prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.emobile.springtodo.service.todo;
 
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoImportResponse;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoSuggestion;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.Principal;
 import java.util.List;
 
@@ -11,7 +21,17 @@ public interface TodoService {
 
     void saveTodo(TodoCreateRequest request, Principal principal);
     TodoResponse updateTodo(TodoUpdateRequest request, Principal principal);
+    TodoResponse updateTodo(TodoUpdateRequest request, Long expectedVersion, Principal principal);
+    TodoBatchResponse saveTodos(List<TodoCreateRequest> requests, Principal principal);
+    TodoBatchResponse updateTodos(List<TodoUpdateRequest> requests, Principal principal);
     List<TodoResponse> allTodosByPrincipalWithPagination(Principal principal,int page, int size);
+    List<TodoResponse> allTodosByPrincipalWithCursor(Principal principal, String cursor, int size);
     List<TodoResponse> allTodosCompletedByPrincipal(Principal principal);
     TodoResponse findTodoById(Long id, Principal principal);
+    TodoChangesResponse changesSince(Principal principal, String since, int size);
+    SseEmitter streamChanges(Principal principal);
+    TodoSearchResponse searchTodos(Principal principal, String query, String cursor, int size);
+    List<TodoSuggestion> suggestTodos(Principal principal, String prefix, int limit);
+    void exportTodos(Principal principal, TodoFileFormat format, OutputStream out) throws IOException;
+    TodoImportResponse importTodos(Principal principal, TodoFileFormat format, InputStream in) throws IOException;
 }
@@ -1,23 +1,56 @@
 package com.emobile.springtodo.service.todo;
 
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.dto.TodoBatchItemResult;
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoChange;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoImportResponse;
+import com.emobile.springtodo.dto.TodoCursor;
+import com.emobile.springtodo.dto.TodoEvent;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchCursor;
+import com.emobile.springtodo.dto.TodoSearchHit;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoSuggestion;
+import com.emobile.springtodo.dto.TodoTombstone;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import com.emobile.springtodo.dto.TodoUpdateResult;
+import com.emobile.springtodo.dto.TodoWatermark;
+import com.emobile.springtodo.exception.BatchSizeExceededException;
+import com.emobile.springtodo.exception.InvalidPageSizeException;
 import com.emobile.springtodo.exception.TodoNotFoundException;
-import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.exception.TodoVersionConflictException;
 import com.emobile.springtodo.repository.UserRepository;
 import com.emobile.springtodo.repository.todo.TodoRepository;
 import com.emobile.springtodo.security.CustomUserDetails;
 import com.emobile.springtodo.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,27 +59,121 @@ public class TodoServiceImpl implements TodoService {
     private final UserRepository userRepository;
     private final TodoRepository todoRepository;
     private final JwtUtil jwtUtil;
+    private final TodoCacheInvalidator cacheInvalidator;
+    private final TodoChangeMarker changeMarker;
+    private final TodoEventBroadcaster eventBroadcaster;
+    private final TodoPrefixIndex prefixIndex;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${todo.batch.max-size:1000}")
+    private int maxBatchSize;
+    @Value("${todo.import.max-reported-errors:100}")
+    private int maxReportedImportErrors;
+    @Value("${todo.page.max-size:1000}")
+    private int maxPageSize;
 
     @Override
-    @CacheEvict(value = {"todos", "allTodos", "completedTodos"}, allEntries = true)
     public void saveTodo(TodoCreateRequest request, Principal principal) {
         Long userId = getUserIdFromPrincipal(principal);
-        todoRepository.saveTodo(request, userId);
+        TodoResponse saved = todoRepository.saveTodo(request, userId);
+        cacheInvalidator.putTodo(userId, saved);
+        cacheInvalidator.addToUserLists(userId, saved);
+        prefixIndex.put(userId, saved.getId(), saved.getTitle());
+        eventBroadcaster.publish(userId, TodoEvent.created(saved));
     }
 
     @Override
-    @CacheEvict(value = {"todos", "allTodos", "completedTodos"}, allEntries = true)
     public TodoResponse updateTodo(TodoUpdateRequest request, Principal principal) {
+        return updateTodo(request, null, principal);
+    }
+
+    @Override
+    public TodoResponse updateTodo(TodoUpdateRequest request, Long expectedVersion, Principal principal) {
         Long userId = getUserIdFromPrincipal(principal);
 
-        int rowsUpdated = todoRepository.updateTodo(request, userId);
+        TodoUpdateResult result = todoRepository.updateTodo(request, expectedVersion, userId)
+                .orElseThrow(() -> updateFailure(request.getId(), expectedVersion, userId));
+        TodoResponse updated = result.todo();
+
+        cacheInvalidator.putTodo(userId, updated);
+        cacheInvalidator.patchUserLists(userId, updated);
+        prefixIndex.put(userId, updated.getId(), updated.getTitle());
+        eventBroadcaster.publish(userId, TodoEvent.updated(updated, result.wasCompleted()));
+        return updated;
+    }
+
+    @Override
+    public TodoBatchResponse saveTodos(List<TodoCreateRequest> requests, Principal principal) {
+        Long userId = getUserIdFromPrincipal(principal);
+        checkBatchSize(requests);
+
+        List<TodoBatchItemResult> results = new ArrayList<>(requests.size());
+        List<TodoCreateRequest> valid = new ArrayList<>(requests.size());
+        List<TodoBatchItemResult> pending = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String violations = violations(requests.get(i));
+            TodoBatchItemResult result = violations == null
+                    ? new TodoBatchItemResult(i, null, TodoBatchItemResult.Status.CREATED, null)
+                    : new TodoBatchItemResult(i, null, TodoBatchItemResult.Status.INVALID, violations);
+            if (violations == null) {
+                valid.add(requests.get(i));
+                pending.add(result);
+            }
+            results.add(result);
+        }
 
-        if (rowsUpdated == 0) {
-            throw new TodoNotFoundException("Todo not found or permission denied.");
+        if (!valid.isEmpty()) {
+            List<Long> ids = todoRepository.saveTodos(valid, userId);
+            for (int i = 0; i < pending.size() && i < ids.size(); i++) {
+                pending.get(i).setId(ids.get(i));
+            }
+            cacheInvalidator.evictUserLists(userId);
+            eventBroadcaster.publish(userId, TodoEvent.changed());
         }
-        return TodoMapper.mapToTodoResponse(request);
+        return toBatchResponse(results);
     }
 
+    @Override
+    public TodoBatchResponse updateTodos(List<TodoUpdateRequest> requests, Principal principal) {
+        Long userId = getUserIdFromPrincipal(principal);
+        checkBatchSize(requests);
+
+        List<TodoBatchItemResult> results = new ArrayList<>(requests.size());
+        List<TodoUpdateRequest> valid = new ArrayList<>(requests.size());
+        List<TodoBatchItemResult> pending = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TodoUpdateRequest request = requests.get(i);
+            String violations = violations(request);
+            TodoBatchItemResult result = new TodoBatchItemResult(i, request.getId(),
+                    violations == null ? TodoBatchItemResult.Status.UPDATED : TodoBatchItemResult.Status.INVALID,
+                    violations);
+            if (violations == null) {
+                valid.add(request);
+                pending.add(result);
+            }
+            results.add(result);
+        }
+
+        if (!valid.isEmpty()) {
+            int[] rowsUpdated = todoRepository.updateTodos(valid, userId);
+            List<Long> updatedIds = new ArrayList<>(valid.size());
+            for (int i = 0; i < pending.size(); i++) {
+                if (i < rowsUpdated.length && rowsUpdated[i] == 0) {
+                    pending.get(i).setStatus(TodoBatchItemResult.Status.NOT_FOUND);
+                    pending.get(i).setMessage("Todo not found or permission denied.");
+                } else {
+                    updatedIds.add(valid.get(i).getId());
+                }
+            }
+            if (!updatedIds.isEmpty()) {
+                cacheInvalidator.evictTodos(userId, updatedIds);
+                cacheInvalidator.evictUserLists(userId);
+                eventBroadcaster.publish(userId, TodoEvent.changed());
+            }
+        }
+        return toBatchResponse(results);
+    }
 
     @Override
     public List<TodoResponse> allTodosByPrincipalWithPagination(Principal principal, int page, int size) {
@@ -54,6 +181,14 @@ public class TodoServiceImpl implements TodoService {
         return todoRepository.allTodosByUserIdWithPagination(userId, page, size);
     }
 
+    @Override
+    public List<TodoResponse> allTodosByPrincipalWithCursor(Principal principal, String cursor, int size) {
+        requirePageSize(size);
+        Long userId = getUserIdFromPrincipal(principal);
+        TodoCursor after = cursor.isBlank() ? null : TodoCursor.decode(cursor);
+        return todoRepository.allTodosByUserIdAfterCursor(userId, after, size);
+    }
+
     @Override
     public List<TodoResponse> allTodosCompletedByPrincipal(Principal principal) {
         Long userId = getUserIdFromPrincipal(principal);
@@ -67,6 +202,212 @@ public class TodoServiceImpl implements TodoService {
                 .orElseThrow(() -> new TodoNotFoundException("Todo not found with id: " + id));
     }
 
+    @Override
+    public TodoChangesResponse changesSince(Principal principal, String since, int size) {
+        requirePageSize(size);
+        Long userId = getUserIdFromPrincipal(principal);
+        TodoWatermark from = since == null || since.isBlank() ? TodoWatermark.INITIAL : TodoWatermark.decode(since);
+
+        String marker = changeMarker.current(userId);
+        if (marker != null && marker.equals(from.marker())) {
+            return new TodoChangesResponse(List.of(), List.of(), since, false);
+        }
+
+        List<TodoChange> changed = todoRepository.todosChangedAfter(userId, from.changedXid(), from.changedId(), size);
+        List<TodoTombstone> deleted = todoRepository.tombstonesAfter(userId, from.deletedXid(), from.deletedId(), size);
+        // A write still in flight can commit below the newest rows, so the watermark stops before the first one
+        // that is not settled yet and the next call reads from there again instead of being answered by the marker.
+        List<TodoChange> settledChanged = settledPrefix(changed, TodoChange::settled);
+        List<TodoTombstone> settledDeleted = settledPrefix(deleted, TodoTombstone::settled);
+        boolean unsettled = settledChanged.size() < changed.size() || settledDeleted.size() < deleted.size();
+        boolean hasMore = !unsettled && (changed.size() == size || deleted.size() == size);
+        TodoWatermark next = from.advance(settledChanged, settledDeleted, hasMore || unsettled ? null : marker);
+        return new TodoChangesResponse(settledChanged.stream().map(TodoChange::todo).toList(),
+                settledDeleted.stream().map(TodoTombstone::todoId).toList(),
+                next.encode(),
+                hasMore);
+    }
+
+    private void requirePageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidPageSizeException("Page size must be between 1 and " + maxPageSize + ": " + size);
+        }
+    }
+
+    private static <T> List<T> settledPrefix(List<T> rows, Predicate<T> settled) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (!settled.test(rows.get(i))) {
+                return rows.subList(0, i);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public TodoSearchResponse searchTodos(Principal principal, String query, String cursor, int size) {
+        requirePageSize(size);
+        Long userId = getUserIdFromPrincipal(principal);
+        if (query == null || query.isBlank()) {
+            return new TodoSearchResponse(List.of(), null);
+        }
+        TodoSearchCursor after = cursor == null || cursor.isBlank() ? null : TodoSearchCursor.decode(cursor);
+        List<TodoSearchHit> hits = todoRepository.searchTodos(userId, query, after, size);
+        return new TodoSearchResponse(hits.stream().map(TodoSearchHit::todo).toList(),
+                TodoSearchCursor.next(hits, size));
+    }
+
+    @Override
+    public List<TodoSuggestion> suggestTodos(Principal principal, String prefix, int limit) {
+        Long userId = getUserIdFromPrincipal(principal);
+        return prefixIndex.suggest(userId, prefix, limit);
+    }
+
+    @Override
+    public SseEmitter streamChanges(Principal principal) {
+        return eventBroadcaster.subscribe(getUserIdFromPrincipal(principal));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTodos(Principal principal, TodoFileFormat format, OutputStream out) throws IOException {
+        Long userId = getUserIdFromPrincipal(principal);
+        try (TodoExportWriter writer = TodoExportWriter.of(format, out, objectMapper)) {
+            todoRepository.forEachTodoByUserId(userId, todo -> {
+                try {
+                    writer.write(todo);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public TodoImportResponse importTodos(Principal principal, TodoFileFormat format, InputStream in) throws IOException {
+        Long userId = getUserIdFromPrincipal(principal);
+        long started = System.nanoTime();
+
+        ValidatingImportIterator rows;
+        long imported;
+        try (TodoImportReader reader = TodoImportReader.of(format, in, objectMapper)) {
+            rows = new ValidatingImportIterator(reader);
+            imported = todoRepository.copyTodos(rows, userId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (imported > 0) {
+            cacheInvalidator.evictUserLists(userId);
+            eventBroadcaster.publish(userId, TodoEvent.changed());
+        }
+
+        long durationMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        long rowsPerSecond = imported * 1000 / durationMillis;
+        log.info("Imported {} todos for user {} in {} ms ({} rows/s), {} rejected",
+                imported, userId, durationMillis, rowsPerSecond, rows.rejected);
+        return new TodoImportResponse(imported, rows.rejected, durationMillis, rowsPerSecond, rows.errors);
+    }
+
+    /**
+     * A conditional update matching no row either lost the race to another writer or targets a missing todo.
+     */
+    private RuntimeException updateFailure(Long todoId, Long expectedVersion, Long userId) {
+        if (expectedVersion != null) {
+            Optional<Long> currentVersion = todoRepository.findTodoVersion(todoId, userId);
+            if (currentVersion.isPresent()) {
+                return new TodoVersionConflictException("Todo " + todoId + " is at version " + currentVersion.get()
+                        + ", not " + expectedVersion);
+            }
+        }
+        return new TodoNotFoundException("Todo not found or permission denied.");
+    }
+
+    private void checkBatchSize(List<?> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new BatchSizeExceededException("Batch must not exceed " + maxBatchSize + " items");
+        }
+    }
+
+    private String violations(Object request) {
+        if (request == null) {
+            return "Item cannot be null";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private TodoBatchResponse toBatchResponse(List<TodoBatchItemResult> results) {
+        int succeeded = (int) results.stream()
+                .filter(result -> result.getStatus() == TodoBatchItemResult.Status.CREATED
+                        || result.getStatus() == TodoBatchItemResult.Status.UPDATED)
+                .count();
+        return new TodoBatchResponse(succeeded, results.size() - succeeded, results);
+    }
+
+    /**
+     * Pulls records from the reader on demand and skips the ones that fail to parse or validate,
+     * so the repository sees only valid rows and the upload is never held in memory.
+     */
+    private class ValidatingImportIterator implements Iterator<TodoCreateRequest> {
+        private final TodoImportReader reader;
+        private final List<String> errors = new ArrayList<>();
+        private long rejected;
+        private TodoCreateRequest next;
+
+        private ValidatingImportIterator(TodoImportReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                TodoCreateRequest candidate;
+                try {
+                    candidate = reader.next();
+                } catch (TodoImportReader.MalformedRecordException e) {
+                    reject(e.getMessage());
+                    continue;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (candidate == null) {
+                    return false;
+                }
+                String violations = violations(candidate);
+                if (violations == null) {
+                    next = candidate;
+                } else {
+                    reject(violations);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public TodoCreateRequest next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            TodoCreateRequest current = next;
+            next = null;
+            return current;
+        }
+
+        private void reject(String message) {
+            rejected++;
+            if (errors.size() < maxReportedImportErrors) {
+                errors.add("line " + reader.line() + ": " + message);
+            }
+        }
+    }
+
     private Long getUserIdFromPrincipal(Principal principal){
         UsernamePasswordAuthenticationToken token = (UsernamePasswordAuthenticationToken) principal;
         CustomUserDetails userDetails = (CustomUserDetails) token.getPrincipal();
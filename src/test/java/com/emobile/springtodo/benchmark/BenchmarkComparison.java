@@ -0,0 +1,100 @@
+package com.emobile.springtodo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files written by {@code mvn -Pbenchmark verify} and exits with status 1 when any
+ * benchmark got slower than the threshold (10% by default) by more than the error margins of both runs.
+ * <pre>
+ * java -cp target/test-classes:... com.emobile.springtodo.benchmark.BenchmarkComparison \
+ *     baseline.json current.json [threshold-percent]
+ * </pre>
+ */
+public class BenchmarkComparison {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-80s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double change = slowdownPercent(before, after);
+            boolean regression = regression(before, after, threshold);
+            regressed |= regression;
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), score(before), score(after), change,
+                    regression ? "  REGRESSION" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /**
+     * Slower by more than {@code threshold} percent and by more than the error margins of both runs.
+     */
+    static boolean regression(JsonNode before, JsonNode after, double threshold) {
+        boolean significant = Math.abs(score(after) - score(before)) > error(before) + error(after);
+        return significant && slowdownPercent(before, after) > threshold;
+    }
+
+    /**
+     * Positive when {@code after} is slower, whichever way the benchmark mode scores. A zero score, which JMH reports
+     * for results below its resolution, has no ratio: it counts as a 100% change toward whichever side is worse.
+     */
+    static double slowdownPercent(JsonNode before, JsonNode after) {
+        double scoreBefore = score(before);
+        double scoreAfter = score(after);
+        boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+        if (scoreBefore == 0 || scoreAfter == 0) {
+            if (scoreBefore == scoreAfter) {
+                return 0;
+            }
+            boolean slower = higherIsBetter ? scoreAfter < scoreBefore : scoreAfter > scoreBefore;
+            return slower ? 100 : -100;
+        }
+        double ratio = scoreAfter / scoreBefore;
+        return (higherIsBetter ? 1 / ratio - 1 : ratio - 1) * 100;
+    }
+
+    static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : OBJECT_MAPPER.readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        Map<String, String> params = new TreeMap<>();
+        result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        String benchmark = result.path("benchmark").asText();
+        return params.isEmpty() ? benchmark : benchmark + params;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
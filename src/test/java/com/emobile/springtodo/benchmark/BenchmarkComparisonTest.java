@@ -0,0 +1,69 @@
+package com.emobile.springtodo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkComparisonTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void slowdownPercent_ShouldBePositive_WhenAverageTimeGrows() throws IOException {
+        assertEquals(50, BenchmarkComparison.slowdownPercent(result("avgt", 2, 0), result("avgt", 3, 0)), 1e-9);
+        assertEquals(-50, BenchmarkComparison.slowdownPercent(result("avgt", 2, 0), result("avgt", 1, 0)), 1e-9);
+    }
+
+    @Test
+    void slowdownPercent_ShouldBePositive_WhenThroughputDrops() throws IOException {
+        assertEquals(100, BenchmarkComparison.slowdownPercent(result("thrpt", 200, 0), result("thrpt", 100, 0)), 1e-9);
+        assertEquals(-50, BenchmarkComparison.slowdownPercent(result("thrpt", 100, 0), result("thrpt", 200, 0)), 1e-9);
+    }
+
+    @Test
+    void slowdownPercent_ShouldStayFinite_WhenAScoreIsZero() throws IOException {
+        assertEquals(0, BenchmarkComparison.slowdownPercent(result("avgt", 0, 0), result("avgt", 0, 0)));
+        assertEquals(100, BenchmarkComparison.slowdownPercent(result("avgt", 0, 0), result("avgt", 5, 0)));
+        assertEquals(-100, BenchmarkComparison.slowdownPercent(result("thrpt", 0, 0), result("thrpt", 5, 0)));
+        assertEquals(100, BenchmarkComparison.slowdownPercent(result("thrpt", 5, 0), result("thrpt", 0, 0)));
+    }
+
+    @Test
+    void regression_ShouldIgnoreSlowdownsWithinErrorMargins() throws IOException {
+        assertFalse(BenchmarkComparison.regression(result("avgt", 100, 15), result("avgt", 120, 10), 10));
+        assertTrue(BenchmarkComparison.regression(result("avgt", 100, 5), result("avgt", 120, 5), 10));
+        assertFalse(BenchmarkComparison.regression(result("avgt", 100, 1), result("avgt", 105, 1), 10));
+    }
+
+    @Test
+    void read_ShouldKeyResultsByBenchmarkAndParams(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("results.json");
+        Files.writeString(file, """
+                [
+                  {"benchmark": "a.B.encode", "mode": "avgt", "params": {"size": "10", "codec": "json"},
+                   "primaryMetric": {"score": 1.0, "scoreError": 0.1}},
+                  {"benchmark": "a.B.decode", "mode": "avgt",
+                   "primaryMetric": {"score": 2.0, "scoreError": "NaN"}}
+                ]
+                """);
+
+        Map<String, JsonNode> results = BenchmarkComparison.read(file.toFile());
+
+        assertEquals(List.of("a.B.encode{codec=json, size=10}", "a.B.decode"), List.copyOf(results.keySet()));
+    }
+
+    private static JsonNode result(String mode, double score, double error) throws IOException {
+        return OBJECT_MAPPER.readTree("""
+                {"benchmark": "a.B.run", "mode": "%s", "primaryMetric": {"score": %s, "scoreError": %s}}
+                """.formatted(mode, score, error));
+    }
+}
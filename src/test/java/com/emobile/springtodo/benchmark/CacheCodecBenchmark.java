@@ -0,0 +1,74 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.cache.TodoCacheCodec;
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.dto.TodoResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of a cached page of todos with the previous default-typing JSON serializer, the binary
+ * codec, and the binary codec with LZ4 forced on. Entry sizes are asserted in {@code TodoCacheCodecTest}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int pageSize;
+
+    @Param({"json", "binary", "binary-lz4"})
+    private String codec;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = RedisConfig.jsonSerializer();
+        serializer = switch (codec) {
+            case "json" -> json;
+            case "binary" -> new TodoCacheCodec(json, Integer.MAX_VALUE);
+            default -> new TodoCacheCodec(json, 0);
+        };
+
+        LocalDateTime timestamp = LocalDateTime.of(2024, 12, 22, 10, 0, 0, 123_456_000);
+        List<TodoResponse> todos = new ArrayList<>();
+        for (long i = 1; i <= pageSize; i++) {
+            todos.add(new TodoResponse(1_000_000 + i, "Todo " + i, "Description of todo " + i,
+                    i % 3 == 0, timestamp.plusSeconds(i), timestamp.plusSeconds(i), 0L));
+        }
+        value = pageSize == 1 ? todos.get(0) : todos;
+        encoded = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
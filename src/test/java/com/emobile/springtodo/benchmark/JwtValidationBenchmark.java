@@ -0,0 +1,101 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.security.CustomUserDetails;
+import com.emobile.springtodo.security.JwtUtil;
+import com.emobile.springtodo.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token validation cost per authenticated request:
+ * <ul>
+ *     <li>{@code perRequestParsers} - the original filter path: three parses, each with a new key and parser;</li>
+ *     <li>{@code sharedParser} - a single parse with the key and parser built once;</li>
+ *     <li>{@code cachedClaims} - {@link JwtUtil#parseToken} with the verified-token cache;</li>
+ *     <li>{@code validateToken} - {@link JwtUtil#validateToken}, the username and expiry checks on top of it.</li>
+ * </ul>
+ * {@code generateToken} measures issuing a token at login.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "SecretKeyForJWTGeneration12345678";
+
+    private JwtUtil jwtUtil;
+    private JwtParser sharedParser;
+    private String token;
+    private CustomUserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaximumSize", 10_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheExecutor", ForkJoinPool.commonPool());
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        sharedParser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+        userDetails = new CustomUserDetails(1L, "benchmarkUser", "", List.of(new SimpleGrantedAuthority("USER")));
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean perRequestParsers() {
+        String username = parseWithNewParser().getSubject();
+        boolean sameUser = parseWithNewParser().getSubject().equals(username);
+        boolean expired = parseWithNewParser().getExpiration().before(new java.util.Date());
+        return sameUser && !expired;
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public VerifiedToken cachedClaims() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    private Claims parseWithNewParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.dto.AuthResponse;
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.UserRegistrationRequest;
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.Latency;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.ResultTable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows per second written through the single-item {@code POST /v1/api/todos} and through
+ * {@code POST /v1/api/todos/batch}, both over HTTP with a real token, so each includes the whole request path.
+ * Run with {@code -Dbenchmark=true}, and size it with {@code -Dtodo.batch.single-rows} and
+ * {@code -Dtodo.batch.batches}; it is skipped in the regular test run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=-1",
+        // the container URL lacks the driver flag that application.yaml sets on the production URL
+        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TodoBatchBenchmarkTest extends AbstractRestControllerBaseTest {
+
+    private static final int SINGLE_ROWS = Integer.getInteger("todo.batch.single-rows", 1_000);
+    private static final int BATCHES = Integer.getInteger("todo.batch.batches", 10);
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    @BeforeAll
+    void registerUser() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+
+        AuthResponse auth = restTemplate.postForObject("/v1/api/auth/register",
+                new UserRegistrationRequest("batch-benchmark", "password"), AuthResponse.class);
+        assertNotNull(auth);
+        headers.setBearerAuth(auth.getToken());
+    }
+
+    @Test
+    void batchCreateWritesAtLeastTenTimesTheRowsPerSecondOfSingleCreates() {
+        // warm up both paths before timing them
+        createOneByOne(SINGLE_ROWS / 5);
+        createInBatches(1);
+
+        long singleNanos = Latency.timed(() -> createOneByOne(SINGLE_ROWS));
+        long batchNanos = Latency.timed(() -> createInBatches(BATCHES));
+        double singleRate = SINGLE_ROWS / (singleNanos / 1e9);
+        double batchRate = (double) BATCHES * BATCH_SIZE / (batchNanos / 1e9);
+
+        new ResultTable("path", "rows", "seconds", "rows/s")
+                .row("POST /v1/api/todos", SINGLE_ROWS, "%.2f".formatted(singleNanos / 1e9), Math.round(singleRate))
+                .row("POST /v1/api/todos/batch", BATCHES * BATCH_SIZE, "%.2f".formatted(batchNanos / 1e9),
+                        Math.round(batchRate))
+                .print();
+        assertTrue(batchRate >= singleRate * 10,
+                "batch create should write at least 10x the rows per second of single creates, was %.1fx"
+                        .formatted(batchRate / singleRate));
+    }
+
+    private void createOneByOne(int rows) {
+        for (int i = 0; i < rows; i++) {
+            int status = restTemplate.exchange("/v1/api/todos", HttpMethod.POST,
+                    new HttpEntity<>(todo(i), headers), Void.class).getStatusCode().value();
+            assertEquals(HttpStatus.CREATED.value(), status);
+        }
+    }
+
+    private void createInBatches(int batches) {
+        for (int batch = 0; batch < batches; batch++) {
+            List<TodoCreateRequest> todos = IntStream.range(0, BATCH_SIZE).mapToObj(this::todo).toList();
+            TodoBatchResponse response = restTemplate.exchange("/v1/api/todos/batch", HttpMethod.POST,
+                    new HttpEntity<>(todos, headers), TodoBatchResponse.class).getBody();
+            assertNotNull(response);
+            assertEquals(BATCH_SIZE, response.getSucceeded());
+        }
+    }
+
+    private TodoCreateRequest todo(int n) {
+        return new TodoCreateRequest("Benchmark todo " + n, "Description " + n);
+    }
+}
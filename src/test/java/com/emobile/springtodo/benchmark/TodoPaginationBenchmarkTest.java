@@ -0,0 +1,91 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.Latency;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.ResultTable;
+import com.emobile.springtodo.utils.TodoDatasetGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares LIMIT/OFFSET and keyset pagination latency from page 1 to page 10 000.
+ * Run with {@code -Dbenchmark=true}; it is skipped in the regular test run.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TodoPaginationBenchmarkTest extends AbstractRestControllerBaseTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int[] PAGES = {1, 10, 100, 1_000, 10_000};
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+
+        userId = new TodoDatasetGenerator(jdbcTemplate)
+                .seed(1, (long) PAGE_SIZE * PAGES[PAGES.length - 1])
+                .get(0);
+    }
+
+    @Test
+    void keysetLatencyStaysFlatWhileOffsetLatencyGrows() {
+        ResultTable table = new ResultTable("page", "offset p50 us", "keyset p50 us");
+
+        long firstKeyset = 0;
+        long lastKeyset = 0;
+        for (int page : PAGES) {
+            Map<String, Object> cursor = page == 1 ? null : jdbcTemplate.queryForMap(
+                    "SELECT created_at, id FROM todo WHERE user_id = ? ORDER BY created_at, id OFFSET ? LIMIT 1",
+                    userId, (page - 1) * PAGE_SIZE - 1);
+
+            long offset = Latency.median(ITERATIONS, () -> jdbcTemplate.queryForList(
+                    TodoRepository.SELECT_ALL_TODOS, userId, PAGE_SIZE, (page - 1) * PAGE_SIZE));
+            long keyset = Latency.median(ITERATIONS, () -> {
+                if (cursor == null) {
+                    jdbcTemplate.queryForList(TodoRepository.SELECT_FIRST_TODOS, userId, PAGE_SIZE);
+                } else {
+                    jdbcTemplate.queryForList(TodoRepository.SELECT_TODOS_AFTER_CURSOR,
+                            userId, (Timestamp) cursor.get("created_at"), cursor.get("id"), PAGE_SIZE);
+                }
+            });
+
+            table.row(page, Latency.micros(offset), Latency.micros(keyset));
+            if (page == 1) {
+                firstKeyset = keyset;
+            }
+            lastKeyset = keyset;
+        }
+        table.print();
+
+        assertTrue(lastKeyset < firstKeyset * 5,
+                "keyset page " + PAGES[PAGES.length - 1] + " should cost about the same as page 1");
+    }
+}
@@ -0,0 +1,146 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.Latency;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.ResultTable;
+import com.emobile.springtodo.utils.TodoDatasetGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the same rows through the hash-partitioned {@code todo} table and the {@code todo_unpartitioned} table the
+ * migration leaves behind, and compares query latency and the cost of vacuuming after one user rewrites all of
+ * their todos, before and after the migration. Run with {@code -Dbenchmark=true}, and size the dataset with {@code -Dtodo.dataset.users} and
+ * {@code -Dtodo.dataset.todos-per-user}; it is skipped in the regular test run.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TodoPartitioningBenchmarkTest extends AbstractRestControllerBaseTest {
+
+    private static final String UNPARTITIONED = "todo_unpartitioned";
+    private static final int ITERATIONS = 200;
+    private static final int VACUUM_ROUNDS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long todoId;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE " + UNPARTITIONED);
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+
+        List<Long> userIds = new TodoDatasetGenerator(jdbcTemplate).seed(
+                Integer.getInteger("todo.dataset.users", 64),
+                Long.getLong("todo.dataset.todos-per-user", 10_000L));
+        userId = userIds.get(userIds.size() / 2);
+        todoId = jdbcTemplate.queryForObject("SELECT max(id) FROM todo WHERE user_id = ?", Long.class, userId);
+
+        jdbcTemplate.update("""
+                INSERT INTO todo_unpartitioned (id, user_id, title, description, completed, created_at, updated_at, version,
+                                                change_xid, search_vector)
+                SELECT id, user_id, title, description, completed, created_at, updated_at, version, change_xid, search_vector
+                FROM todo
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE " + UNPARTITIONED);
+    }
+
+    @Test
+    void partitionedQueriesAreNoSlowerThanUnpartitioned() {
+        Map<String, Object[]> queries = new LinkedHashMap<>();
+        queries.put("SELECT_FIRST_TODOS", new Object[]{userId, 20});
+        queries.put("SELECT_ALL_TODOS", new Object[]{userId, 20, 2_000});
+        queries.put("SELECT_TODO_BY_ID", new Object[]{todoId, userId});
+        queries.put("SELECT_COMPLETED_TODOS", new Object[]{userId});
+        queries.put("SELECT_CHANGED_TODOS", new Object[]{userId, "0", 0L, 100});
+        queries.put("SEARCH_FIRST_TODOS", new Object[]{"todo", userId, 20});
+
+        ResultTable table = new ResultTable("query", "unpartitioned p50 us", "partitioned p50 us");
+        for (Map.Entry<String, Object[]> query : queries.entrySet()) {
+            String sql = sql(query.getKey());
+            long partitioned = Latency.median(ITERATIONS, () -> jdbcTemplate.queryForList(sql, query.getValue()));
+            long unpartitioned = Latency.median(ITERATIONS, () -> jdbcTemplate.queryForList(
+                    sql.replaceAll("\\bFROM todo\\b", "FROM " + UNPARTITIONED), query.getValue()));
+
+            table.row(query.getKey(), Latency.micros(unpartitioned), Latency.micros(partitioned));
+            assertTrue(partitioned < unpartitioned * 2 + 100_000,
+                    query.getKey() + " should cost about the same once pruned to a single partition");
+        }
+        table.print();
+    }
+
+    /**
+     * Runs the same maintenance before and after the migration: one user rewrites all of their todos, then the
+     * whole table is vacuumed. Before, vacuum has to scan indexes that cover every user to remove the dead rows;
+     * after, only the dirty partition's indexes hold any, and the other partitions are skipped by their visibility
+     * maps. The dirty partition on its own is what autovacuum picks up, and is printed for reference.
+     */
+    @Test
+    void vacuumAfterOneUsersRewriteIsCheaperThanBeforeTheMigration() {
+        String partition = jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM todo WHERE user_id = ? LIMIT 1", String.class, userId);
+
+        long unpartitioned = medianVacuum(UNPARTITIONED, UNPARTITIONED);
+        long partitioned = medianVacuum("todo", "todo");
+        long dirtyPartition = medianVacuum("todo", partition);
+
+        new ResultTable("vacuum after one user's rewrite", "total size", "p50 ms")
+                .row(UNPARTITIONED + " (before)", size(UNPARTITIONED), unpartitioned / 1_000_000)
+                .row("todo (after)", size("todo"), partitioned / 1_000_000)
+                .row(partition + " only", size(partition), dirtyPartition / 1_000_000)
+                .print();
+        assertTrue(partitioned < unpartitioned,
+                "vacuuming the partitioned table after one user's rewrite should be cheaper than before the migration");
+    }
+
+    private long medianVacuum(String rewritten, String vacuumed) {
+        long[] samples = new long[VACUUM_ROUNDS];
+        for (int i = 0; i < VACUUM_ROUNDS; i++) {
+            jdbcTemplate.update("UPDATE " + rewritten + " SET version = version + 1 WHERE user_id = ?", userId);
+            samples[i] = Latency.timed(() -> jdbcTemplate.execute("VACUUM " + vacuumed));
+        }
+        Arrays.sort(samples);
+        return Latency.percentile(samples, 50);
+    }
+
+    private String size(String table) {
+        // a partitioned table has no storage of its own, so add up its partitions
+        return jdbcTemplate.queryForObject(
+                "SELECT pg_size_pretty(sum(pg_total_relation_size(relid))) FROM pg_partition_tree(?::regclass)",
+                String.class, table);
+    }
+
+    private static String sql(String constant) {
+        try {
+            return (String) TodoRepository.class.getField(constant).get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(constant, e);
+        }
+    }
+}
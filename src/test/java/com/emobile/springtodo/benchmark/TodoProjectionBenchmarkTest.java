@@ -0,0 +1,95 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.repository.UserRepository;
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import com.emobile.springtodo.repository.todo.TodoRowMapper;
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.Latency;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.ResultTable;
+import com.emobile.springtodo.utils.TodoDatasetGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fetches a 10k-row result set with the original {@code SELECT *} plus by-name mapping and with the explicit
+ * projection plus {@link TodoRowMapper}, and compares the bytes PostgreSQL returns for each.
+ * Run with {@code -Dbenchmark=true}; it is skipped in the regular test run.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TodoProjectionBenchmarkTest extends AbstractRestControllerBaseTest {
+
+    private static final int ROWS = 10_000;
+    private static final int ITERATIONS = 30;
+    private static final String SELECT_STAR_FOR_EXPORT = "SELECT * FROM todo WHERE user_id = ? ORDER BY created_at, id";
+    private static final String SELECT_STAR_USER = "SELECT * FROM users WHERE username = ?";
+
+    private static final RowMapper<TodoResponse> BY_LABEL = (rs, rowNum) -> new TodoResponse(rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("description"),
+            rs.getBoolean("completed"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getTimestamp("updated_at").toLocalDateTime(),
+            rs.getLong("version"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private String username;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+        userId = new TodoDatasetGenerator(jdbcTemplate).seed(1, ROWS).get(0);
+        username = jdbcTemplate.queryForObject("SELECT username FROM users WHERE id = ?", String.class, userId);
+    }
+
+    @Test
+    void projectionTransfersFewerBytesAndMapsByIndex() {
+        long starBytes = resultBytes(SELECT_STAR_FOR_EXPORT, userId);
+        long projectionBytes = resultBytes(TodoRepository.SELECT_TODOS_FOR_EXPORT, userId);
+        long userStarBytes = resultBytes(SELECT_STAR_USER, username);
+        long userIdentityBytes = resultBytes(UserRepository.SELECT_IDENTITY_BY_USERNAME, username);
+
+        long starNanos = Latency.median(ITERATIONS, () -> jdbcTemplate.query(SELECT_STAR_FOR_EXPORT, BY_LABEL, userId));
+        long projectionNanos = Latency.median(ITERATIONS, () -> jdbcTemplate.query(TodoRepository.SELECT_TODOS_FOR_EXPORT,
+                TodoRowMapper.INSTANCE, userId));
+
+        new ResultTable("", "bytes", "fetch p50 us")
+                .row("SELECT * by label", starBytes, Latency.micros(starNanos))
+                .row("projection by index", projectionBytes, Latency.micros(projectionNanos))
+                .row("users SELECT *", userStarBytes, "")
+                .row("users identity projection", userIdentityBytes, "")
+                .print();
+
+        assertTrue(projectionBytes < starBytes, "todo projection should return fewer bytes than SELECT *");
+        assertTrue(userIdentityBytes < userStarBytes, "identity projection should not carry the password hash");
+    }
+
+    private long resultBytes(String sql, Object param) {
+        Long bytes = jdbcTemplate.queryForObject(
+                "SELECT coalesce(sum(pg_column_size(r.*)), 0) FROM (" + sql + ") r", Long.class, param);
+        return bytes == null ? 0 : bytes;
+    }
+}
@@ -0,0 +1,109 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.repository.todo.TodoRowMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row mapping cost over a 10k-row result set:
+ * <ul>
+ *     <li>{@code selectStarByLabel} - the original path: {@code SELECT *} columns resolved by name on every row;</li>
+ *     <li>{@code projectionByIndex} - {@link TodoRowMapper} over {@code TodoRepository.TODO_COLUMNS}.</li>
+ * </ul>
+ * The rows live in a {@link CachedRowSet}, so only mapping is measured; {@code TodoProjectionBenchmarkTest}
+ * covers fetch time and bytes against PostgreSQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoRowMappingBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private CachedRowSet selectStar;
+    private CachedRowSet projection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        selectStar = rowSet(new String[]{"id", "user_id", "title", "description", "completed", "created_at", "updated_at", "version"},
+                new int[]{Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT});
+        projection = rowSet(new String[]{"id", "title", "description", "completed", "created_at", "updated_at", "version"},
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT});
+    }
+
+    @Benchmark
+    public void selectStarByLabel(Blackhole blackhole) throws SQLException {
+        selectStar.beforeFirst();
+        while (selectStar.next()) {
+            blackhole.consume(new TodoResponse(selectStar.getLong("id"),
+                    selectStar.getString("title"),
+                    selectStar.getString("description"),
+                    selectStar.getBoolean("completed"),
+                    selectStar.getTimestamp("created_at").toLocalDateTime(),
+                    selectStar.getTimestamp("updated_at").toLocalDateTime(),
+                    selectStar.getLong("version")));
+        }
+    }
+
+    @Benchmark
+    public void projectionByIndex(Blackhole blackhole) throws SQLException {
+        projection.beforeFirst();
+        int rowNum = 0;
+        while (projection.next()) {
+            blackhole.consume(TodoRowMapper.INSTANCE.mapRow(projection, rowNum++));
+        }
+    }
+
+    private static CachedRowSet rowSet(String[] columns, int[] types) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            metaData.setColumnName(i + 1, columns[i]);
+            metaData.setColumnLabel(i + 1, columns[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.of(2024, 12, 22, 10, 0));
+        for (int row = 1; row <= ROWS; row++) {
+            rowSet.moveToInsertRow();
+            for (int i = 0; i < columns.length; i++) {
+                int column = i + 1;
+                switch (columns[i]) {
+                    case "id" -> rowSet.updateLong(column, row);
+                    case "user_id", "version" -> rowSet.updateLong(column, 1L);
+                    case "title" -> rowSet.updateString(column, "Todo " + row);
+                    case "description" -> rowSet.updateString(column, "Description " + row);
+                    case "completed" -> rowSet.updateBoolean(column, row % 3 == 0);
+                    default -> rowSet.updateTimestamp(column, timestamp);
+                }
+            }
+            rowSet.insertRow();
+            rowSet.moveToCurrentRow();
+        }
+        return rowSet;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TodoRowMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
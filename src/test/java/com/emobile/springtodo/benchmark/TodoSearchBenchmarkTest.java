@@ -0,0 +1,91 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import com.emobile.springtodo.service.todo.TodoPrefixIndex;
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.Latency;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.ResultTable;
+import com.emobile.springtodo.utils.TodoDatasetGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * p99 latency of full-text search and type-ahead for a user with 100 000 todos, among other users as large, against
+ * the 20 ms budget. Type-ahead is measured on the in-memory index and on the PostgreSQL fallback used while it loads.
+ * Run with {@code -Dbenchmark=true}, and size the dataset with {@code -Dtodo.dataset.users} and
+ * {@code -Dtodo.dataset.todos-per-user}; it is skipped in the regular test run.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TodoSearchBenchmarkTest extends AbstractRestControllerBaseTest {
+
+    private static final int ITERATIONS = 500;
+    private static final long BUDGET_MICROS = 20_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoPrefixIndex prefixIndex;
+
+    private long userId;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+
+        List<Long> userIds = new TodoDatasetGenerator(jdbcTemplate).seed(
+                Integer.getInteger("todo.dataset.users", 4),
+                Long.getLong("todo.dataset.todos-per-user", 100_000L));
+        userId = userIds.get(userIds.size() / 2);
+        prefixIndex.warm(userId).join();
+    }
+
+    @Test
+    void searchAndTypeAheadStayWithinBudget() {
+        Map<String, Runnable> operations = new LinkedHashMap<>();
+        operations.put("search \"4242\"", () -> todoRepository.searchTodos(userId, "4242", null, 20));
+        operations.put("suggest \"todo 4242\" (index)", () -> prefixIndex.suggest(userId, "todo 4242", 10));
+        operations.put("suggest \"todo 4242\" (postgres)",
+                () -> todoRepository.suggestTodos(userId, List.of("todo", "4242"), 10));
+
+        assertFalse(prefixIndex.suggest(userId, "todo 4242", 10).isEmpty());
+        ResultTable table = new ResultTable("operation", "p50 us", "p99 us");
+        Map<String, Long> p99 = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> operation : operations.entrySet()) {
+            long[] samples = Latency.sample(ITERATIONS, operation.getValue());
+            p99.put(operation.getKey(), Latency.micros(Latency.percentile(samples, 99)));
+            table.row(operation.getKey(), Latency.micros(Latency.percentile(samples, 50)), p99.get(operation.getKey()));
+        }
+        table.print();
+
+        p99.forEach((operation, micros) -> assertTrue(micros < BUDGET_MICROS,
+                operation + " p99 " + micros + " us is over the " + BUDGET_MICROS + " us budget"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig(RedisTestContainerConfig.class)
+class CacheKeyIndexTest {
+
+    private static final String PREFIX = "todos:owner-index:";
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+    }
+
+    @Test
+    void register_ShouldIndexKeysPerOwner() {
+        CacheKeyIndex index = new CacheKeyIndex(redisTemplate, PREFIX, Duration.ZERO, 0);
+
+        index.register("1:page=1");
+        index.register("1:page=2");
+        index.register("2:page=1");
+
+        assertEquals(Set.of("1:page=1", "1:page=2"), index.keys("1"));
+        assertEquals(Set.of("2:page=1"), index.keys("2"));
+    }
+
+    @Test
+    void register_ShouldIgnoreKeysWithoutOwner() {
+        CacheKeyIndex index = new CacheKeyIndex(redisTemplate, PREFIX, Duration.ZERO, 0);
+
+        assertEquals(Set.of(), index.register("page=1"));
+        assertEquals(Set.of(), index.register(":page=1"));
+        assertEquals(Set.of(), redisTemplate.keys(PREFIX + "*"));
+    }
+
+    @Test
+    void register_ShouldHandBackOldestKeysOverTheCap() throws InterruptedException {
+        CacheKeyIndex index = new CacheKeyIndex(redisTemplate, PREFIX, Duration.ZERO, 2);
+
+        assertEquals(Set.of(), index.register("1:page=1"));
+        Thread.sleep(2);
+        assertEquals(Set.of(), index.register("1:page=2"));
+        Thread.sleep(2);
+
+        assertEquals(Set.of("1:page=1"), index.register("1:page=3"));
+        assertEquals(Set.of("1:page=2", "1:page=3"), index.keys("1"));
+    }
+
+    @Test
+    void register_ShouldExpireIndexWithTheEntries() {
+        CacheKeyIndex index = new CacheKeyIndex(redisTemplate, PREFIX, Duration.ofMinutes(10), 0);
+
+        index.register("1:page=1");
+
+        Long ttl = redisTemplate.getExpire(PREFIX + "1");
+        assertNotNull(ttl);
+        assertTrue(ttl > 0 && ttl <= 600);
+    }
+
+    @Test
+    void drain_ShouldReturnAndForgetOwnerKeys() {
+        CacheKeyIndex index = new CacheKeyIndex(redisTemplate, PREFIX, Duration.ZERO, 0);
+        index.register("1:page=1");
+        index.register("1:page=2");
+
+        assertEquals(Set.of("1:page=1", "1:page=2"), index.drain("1"));
+        assertEquals(Set.of(), index.keys("1"));
+        assertEquals(Set.of(), index.drain("1"));
+    }
+}
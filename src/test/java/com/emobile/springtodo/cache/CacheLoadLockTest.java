@@ -0,0 +1,63 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig(RedisTestContainerConfig.class)
+class CacheLoadLockTest {
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    private CacheLoadLock lock;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        lock = new CacheLoadLock(redisTemplate, "todos:load-lock:",
+                Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMillis(10));
+    }
+
+    @Test
+    void tryAcquire_ShouldAdmitOneHolderUntilReleased() {
+        String token = lock.tryAcquire("1");
+
+        assertNotNull(token);
+        assertNull(lock.tryAcquire("1"));
+        lock.release("1", token);
+        assertNotNull(lock.tryAcquire("1"));
+    }
+
+    @Test
+    void await_ShouldReturnTheValueOnceTheHolderStoresIt() {
+        lock.tryAcquire("1");
+        AtomicInteger probes = new AtomicInteger();
+
+        assertEquals("todo", lock.await("1", () -> probes.incrementAndGet() < 3 ? null : new SimpleValueWrapper("todo")).get());
+    }
+
+    @Test
+    void await_ShouldStopOnceTheHolderReleasesWithoutAValue() {
+        String token = lock.tryAcquire("1");
+        lock.release("1", token);
+
+        long started = System.nanoTime();
+        assertNull(lock.await("1", () -> null));
+        assertTrue(System.nanoTime() - started < Duration.ofSeconds(1).toNanos());
+    }
+}
@@ -0,0 +1,102 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig(RedisTestContainerConfig.class)
+class CacheMemorySamplerTest {
+
+    private static final String CACHE = "todos";
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+    private CacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        properties = new CacheProperties();
+        properties.getCaches().put(CACHE, new CacheProperties.Spec());
+        properties.getSampler().setSampleSize(10);
+    }
+
+    @Test
+    void sample_ShouldCountEveryKeyAndEstimateFromTheSample() {
+        for (int i = 0; i < 200; i++) {
+            redisTemplate.opsForValue().set(properties.redisKeyPrefix(CACHE) + i, "x".repeat(100));
+        }
+        redisTemplate.opsForValue().set("other::1", "not sampled");
+        CacheMemorySampler sampler = new CacheMemorySampler(redisTemplate, properties, new Random(1));
+
+        CacheMemoryStatistics statistics = sampler.sample(CACHE);
+
+        assertEquals(200, statistics.keys());
+        assertEquals(10, statistics.sampledKeys());
+        assertTrue(statistics.estimatedBytes() >= 200 * 100);
+    }
+
+    @Test
+    void sample_ShouldDrawKeysFromTheWholeScan() {
+        for (int i = 0; i < 200; i++) {
+            redisTemplate.opsForValue().set(properties.redisKeyPrefix(CACHE) + i, "x".repeat(10 * i));
+        }
+        properties.getSampler().setSampleSize(1);
+        CacheMemorySampler sampler = new CacheMemorySampler(redisTemplate, properties, new Random(1));
+
+        // a one-key sample estimates from whichever key it drew, and the keys all differ in size
+        Set<Long> estimates = new HashSet<>();
+        for (int round = 0; round < 20; round++) {
+            estimates.add(sampler.sample(CACHE).estimatedBytes());
+        }
+        assertTrue(estimates.size() > 1, "every round sampled the same key");
+    }
+
+    @Test
+    void sample_ShouldPublishOnlyOnTheLeaseHolder() {
+        redisTemplate.opsForValue().set(properties.redisKeyPrefix(CACHE) + 1, "todo");
+        CacheMemorySampler leader = new CacheMemorySampler(redisTemplate, properties);
+        CacheMemorySampler follower = new CacheMemorySampler(redisTemplate, properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        follower.bindTo(registry);
+
+        leader.sample();
+        follower.sample();
+
+        assertEquals(1, leader.statistics().get(CACHE).keys());
+        assertTrue(follower.statistics().isEmpty());
+        assertTrue(Double.isNaN(registry.get("cache.size").tag("cache", CACHE).gauge().value()));
+    }
+
+    @Test
+    void holdLease_ShouldPassToAnotherNodeOnceReleased() {
+        CacheMemorySampler first = new CacheMemorySampler(redisTemplate, properties);
+        CacheMemorySampler second = new CacheMemorySampler(redisTemplate, properties);
+
+        assertTrue(first.holdLease());
+        assertTrue(first.holdLease());
+        assertFalse(second.holdLease());
+
+        redisTemplate.delete(properties.getSampler().getLeaderKey());
+
+        assertTrue(second.holdLease());
+        assertFalse(first.holdLease());
+    }
+}
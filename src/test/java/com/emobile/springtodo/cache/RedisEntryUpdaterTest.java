@@ -0,0 +1,141 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig(RedisTestContainerConfig.class)
+class RedisEntryUpdaterTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+    private RedisCache cache;
+    private RedisEntryUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisConfig.jsonSerializer()))
+                .entryTtl(TTL)
+                .computePrefixWith(cacheName -> cacheName + "::");
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(configuration)
+                .build();
+        cacheManager.afterPropertiesSet();
+        cache = (RedisCache) cacheManager.getCache("todos");
+        updater = new RedisEntryUpdater(redisTemplate, "todos::", configuration.getValueSerializationPair(), TTL);
+    }
+
+    @Test
+    void update_ShouldKeepTheTtlOfTheEntry() {
+        cache.put("1", "todo");
+        redisTemplate.expire("todos::1", Duration.ofSeconds(5));
+
+        assertTrue(updater.update("1", current -> current + " patched"));
+
+        assertEquals("todo patched", cache.get("1").get());
+        assertTrue(redisTemplate.getExpire("todos::1", TimeUnit.SECONDS) <= 5);
+    }
+
+    @Test
+    void update_ShouldCreateMissingEntryWithTheCacheTtl() {
+        assertTrue(updater.update("1", current -> current == null ? "todo" : current));
+
+        assertEquals("todo", cache.get("1").get());
+        assertTrue(redisTemplate.getExpire("todos::1", TimeUnit.SECONDS) > 5);
+    }
+
+    @Test
+    void update_ShouldRerunOnTheValueWrittenMeanwhile() {
+        cache.put("1", "todo");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(updater.update("1", current -> {
+            if (runs.incrementAndGet() == 1) {
+                cache.put("1", "written elsewhere");
+            }
+            return current + " patched";
+        }));
+
+        assertEquals(2, runs.get());
+        assertEquals("written elsewhere patched", cache.get("1").get());
+    }
+
+    @Test
+    void update_ShouldDropAnEntryThatKeepsChanging() {
+        cache.put("1", "todo");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(updater.update("1", current -> {
+            cache.put("1", "write " + runs.incrementAndGet());
+            return "patched";
+        }));
+
+        assertNull(cache.get("1"));
+    }
+
+    @Test
+    void replace_ShouldStoreTheUpdateAndRestartTheTtl() {
+        cache.put("1", "todo");
+        redisTemplate.expire("todos::1", Duration.ofSeconds(5));
+
+        assertTrue(updater.replace("1", current -> current + " refreshed"));
+
+        assertEquals("todo refreshed", cache.get("1").get());
+        assertTrue(redisTemplate.getExpire("todos::1", TimeUnit.SECONDS) > 5);
+    }
+
+    @Test
+    void replace_ShouldFailWhenTheEntryChangesMeanwhile() {
+        cache.put("1", "todo");
+
+        assertFalse(updater.replace("1", current -> {
+            cache.put("1", "written elsewhere");
+            return "stale";
+        }));
+
+        assertEquals("written elsewhere", cache.get("1").get());
+    }
+
+    @Test
+    void replace_ShouldSeeCachedNullAsMissing() {
+        cache.put("1", null);
+
+        assertFalse(updater.replace("1", current -> current));
+        assertNotNull(cache.get("1"));
+        assertNull(cache.get("1").get());
+    }
+
+    @Test
+    void replace_ShouldDropTheEntryWhenUpdateReturnsNull() {
+        cache.put("1", "todo");
+
+        assertTrue(updater.replace("1", current -> null));
+
+        assertNull(cache.get("1"));
+    }
+}
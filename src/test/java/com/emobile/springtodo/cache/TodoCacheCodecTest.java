@@ -0,0 +1,115 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.dto.TodoResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TodoCacheCodecTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 12, 22, 10, 0, 0, 123_456_000);
+
+    private final GenericJackson2JsonRedisSerializer json = RedisConfig.jsonSerializer();
+    private final TodoCacheCodec codec = new TodoCacheCodec(json, 512);
+
+    @Test
+    void todo_ShouldRoundTripIncludingNulls() {
+        TodoResponse todo = new TodoResponse(42L, "Заголовок", null, true, CREATED_AT, null, 3L);
+
+        byte[] bytes = codec.serialize(todo);
+        TodoResponse decoded = (TodoResponse) codec.deserialize(bytes);
+
+        assertEquals(TodoCacheCodec.MAGIC, bytes[0]);
+        assertEquals(42L, decoded.getId());
+        assertEquals("Заголовок", decoded.getTitle());
+        assertNull(decoded.getDescription());
+        assertTrue(decoded.isCompleted());
+        assertEquals(CREATED_AT, decoded.getCreatedAt());
+        assertNull(decoded.getUpdatedAt());
+        assertEquals(3L, decoded.getVersion());
+        assertTrue(bytes.length < json.serialize(todo).length / 3);
+    }
+
+    @Test
+    void largeList_ShouldBeCompressedAndRoundTrip() {
+        List<TodoResponse> todos = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            todos.add(new TodoResponse(i, "Todo " + i, "Description " + i, i % 3 == 0, CREATED_AT, CREATED_AT, i));
+        }
+
+        byte[] bytes = codec.serialize(todos);
+        @SuppressWarnings("unchecked")
+        List<TodoResponse> decoded = (List<TodoResponse>) codec.deserialize(bytes);
+
+        assertEquals(TodoCacheCodec.FLAG_LZ4, bytes[2]);
+        assertEquals(100, decoded.size());
+        assertEquals("Description 57", decoded.get(56).getDescription());
+        assertEquals(CREATED_AT, decoded.get(99).getUpdatedAt());
+    }
+
+    @Test
+    void otherValues_ShouldFallBackToJson() {
+        Map<String, Object> value = new HashMap<>(Map.of("key", "value"));
+
+        byte[] bytes = codec.serialize(value);
+
+        assertEquals(TodoCacheCodec.TAG_JSON, bytes[3]);
+        assertEquals(value, codec.deserialize(bytes));
+    }
+
+    @Test
+    void entriesWrittenAsJson_ShouldStayReadable() {
+        TodoResponse todo = new TodoResponse(7L, "Legacy", "json", false, CREATED_AT, CREATED_AT, 0L);
+
+        TodoResponse decoded = (TodoResponse) codec.deserialize(json.serialize(todo));
+
+        assertEquals("Legacy", decoded.getTitle());
+    }
+
+    @Test
+    void unknownSchemaVersion_ShouldReadAsMiss() {
+        byte[] bytes = codec.serialize(new TodoResponse(1L, "Title", null, false, CREATED_AT, CREATED_AT, 0L));
+        bytes[1] = TodoCacheCodec.SCHEMA_VERSION + 1;
+
+        assertNull(codec.deserialize(bytes));
+    }
+
+    @Test
+    void valueShorterThanHeader_ShouldFailAsSerializationException() {
+        byte[] bytes = {TodoCacheCodec.MAGIC, TodoCacheCodec.SCHEMA_VERSION};
+
+        assertThrows(SerializationException.class, () -> codec.deserialize(bytes));
+    }
+
+    @Test
+    void truncatedBody_ShouldFailAsSerializationException() {
+        byte[] bytes = codec.serialize(new TodoResponse(1L, "Title", "Description", false, CREATED_AT, CREATED_AT, 0L));
+
+        for (int length = 4; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(SerializationException.class, () -> codec.deserialize(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void corruptCompressedBody_ShouldFailAsSerializationException() {
+        List<TodoResponse> todos = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            todos.add(new TodoResponse(i, "Todo " + i, "Description " + i, false, CREATED_AT, CREATED_AT, i));
+        }
+        byte[] bytes = codec.serialize(todos);
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+
+        assertThrows(SerializationException.class, () -> codec.deserialize(truncated));
+    }
+}
@@ -0,0 +1,363 @@
+package com.emobile.springtodo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    private TwoTierCacheManager cacheManager;
+
+    @Mock
+    private CacheKeyIndex keyIndex;
+
+    private ConcurrentMapCache l2;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        l2 = new ConcurrentMapCache("todos");
+        cache = cache(keyIndex, true, Duration.ZERO, 0);
+    }
+
+    private TwoTierCache cache(CacheKeyIndex keyIndex, boolean allowNullValues, Duration ttl, double earlyRefreshBeta) {
+        return new TwoTierCache("todos", Caffeine.newBuilder().maximumSize(100).build(), l2,
+                new MapEntryUpdater(l2.getNativeCache()), keyIndex,
+                allowNullValues, null, ttl, earlyRefreshBeta, Caffeine.newBuilder().maximumSize(100).build(),
+                Runnable::run, cacheManager);
+    }
+
+    @Test
+    void get_ShouldPromoteL2HitIntoL1() {
+        l2.put(1L, "todo");
+
+        assertEquals("todo", cache.get(1L).get());
+        l2.evict(1L);
+        assertEquals("todo", cache.get(1L).get());
+
+        CacheTierStatistics statistics = cache.statistics();
+        assertEquals(1, statistics.l1Hits());
+        assertEquals(1, statistics.l1Misses());
+        assertEquals(1, statistics.l2Hits());
+        assertEquals(0, statistics.l2Misses());
+    }
+
+    @Test
+    void bindTo_ShouldPublishTierCountersAndOperationTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        l2.put(1L, "todo");
+
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(3L, () -> "loaded");
+
+        assertEquals(1, registry.get("cache.gets").tags("tier", "l2", "result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets").tags("tier", "l2", "result", "miss").functionCounter().count());
+        assertEquals(3, registry.get(TwoTierCache.OPERATION_TIMER).tag("operation", "l2_get").timer().count());
+        assertEquals(1, registry.get(TwoTierCache.OPERATION_TIMER).tag("operation", "load").timer().count());
+        assertEquals(2, registry.get("cache.size").tags("cache", "todos", "tier", "l1").gauge().value());
+    }
+
+    @Test
+    void get_ShouldCacheNullValuesInBothTiers() {
+        assertNull(cache.get(1L, () -> null));
+
+        Cache.ValueWrapper wrapper = cache.get(1L);
+        assertNotNull(wrapper);
+        assertNull(wrapper.get());
+        assertEquals(1, cache.statistics().l1Hits());
+    }
+
+    @Test
+    void get_ShouldReplaceL2EntryThatDoesNotDeserialize() {
+        l2 = new UnreadableEntriesCache("todos");
+        cache = cache(keyIndex, true, Duration.ZERO, 0);
+        l2.getNativeCache().put(1L, UnreadableEntriesCache.UNKNOWN_SCHEMA);
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+
+        assertEquals("loaded", l2.get(1L).get());
+    }
+
+    @Test
+    void evict_ShouldDropBothTiersAndNotifyOtherNodes() {
+        cache.put(1L, "todo");
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(l2.get(1L));
+        verify(cacheManager).publishEvict("todos", List.of("1"));
+    }
+
+    @Test
+    void evictOwner_ShouldOnlyDropKeysRegisteredForOwner() {
+        cache.put("1:1:10", "page of user 1");
+        cache.put("2:1:10", "page of user 2");
+        when(keyIndex.drain("1")).thenReturn(Set.of("1:1:10"));
+
+        cache.evictOwner("1");
+
+        assertNull(cache.get("1:1:10"));
+        assertEquals("page of user 2", cache.get("2:1:10").get());
+        verify(cacheManager).publishEvict("todos", Set.of("1:1:10"));
+    }
+
+    @Test
+    void put_ShouldEvictKeysPushedOutOfOwnerCap() {
+        when(keyIndex.register("1:2:10")).thenReturn(Set.of("1:1:10"));
+
+        cache.put("1:1:10", "first page");
+        cache.put("1:2:10", "second page");
+
+        assertNull(cache.get("1:1:10"));
+        assertEquals("second page", cache.get("1:2:10").get());
+        verify(cacheManager).publishEvict("todos", Set.of("1:1:10"));
+    }
+
+    @Test
+    void put_ShouldSkipNullValuesWhenNotAllowed() {
+        TwoTierCache strict = cache(null, false, Duration.ZERO, 0);
+
+        assertNull(strict.get(1L, () -> null));
+
+        assertNull(strict.get(1L));
+        assertNull(l2.get(1L));
+    }
+
+    @Test
+    void get_ShouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "page";
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("1:1:10", loader));
+            loading.await();
+            List<Future<String>> waiters = List.of(
+                    executor.submit(() -> cache.get("1:1:10", loader)),
+                    executor.submit(() -> cache.get("1:1:10", loader)),
+                    executor.submit(() -> cache.get("1:1:10", loader)));
+            release.countDown();
+
+            assertEquals("page", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> waiter : waiters) {
+                assertEquals("page", waiter.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_ShouldPropagateLoaderFailureAndAllowRetry() {
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertEquals("todo", cache.get(1L, () -> "todo"));
+    }
+
+    @Test
+    void get_ShouldRefreshEarlyWhenCloseToExpiry() {
+        TwoTierCache refreshing = cache(null, true, Duration.ofMillis(1), Double.MAX_VALUE);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            Thread.sleep(5);
+            return "v" + loads.incrementAndGet();
+        };
+
+        assertEquals("v1", refreshing.get(1L, loader));
+        assertEquals("v1", refreshing.get(1L, loader));
+
+        assertEquals(2, loads.get());
+        assertEquals("v2", refreshing.get(1L).get());
+    }
+
+    @Test
+    void get_ShouldNotCacheLoadOverlappingAWrite() {
+        String loaded = cache.get(1L, () -> {
+            cache.patch(1L, cached -> "written");
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertEquals("written", cache.get(1L).get());
+        assertEquals("written", l2.get(1L).get());
+    }
+
+    @Test
+    void get_ShouldNotCacheLoadOverlappingAnEviction() {
+        cache.get(1L, () -> {
+            cache.evict(1L);
+            return "stale";
+        });
+
+        assertNull(cache.get(1L));
+        assertNull(l2.get(1L));
+    }
+
+    @Test
+    void get_ShouldNotLetEarlyRefreshRestoreAnEvictedEntry() {
+        TwoTierCache refreshing = cache(null, true, Duration.ofMillis(1), Double.MAX_VALUE);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            Thread.sleep(5);
+            if (loads.incrementAndGet() == 2) {
+                // another node writes the todo and drops the entry while the refresh queries
+                l2.evict(1L);
+            }
+            return "v" + loads.get();
+        };
+
+        assertEquals("v1", refreshing.get(1L, loader));
+        assertEquals("v1", refreshing.get(1L, loader));
+
+        assertEquals(2, loads.get());
+        assertNull(l2.get(1L));
+    }
+
+    @Test
+    void patch_ShouldUpdateL2AndDropL1OnEveryNode() {
+        cache.put(1L, "todo");
+
+        cache.patch(1L, cached -> cached + " updated");
+
+        assertEquals("todo updated", l2.get(1L).get());
+        assertEquals("todo updated", cache.get(1L).get());
+        assertEquals(1, cache.statistics().l2Hits());
+        verify(cacheManager).publishEvict("todos", List.of("1"));
+    }
+
+    @Test
+    void patch_ShouldLeaveEntryAloneWhenUpdateKeepsIt() {
+        cache.put(1L, "todo");
+
+        cache.patch(1L, cached -> cached);
+
+        assertEquals("todo", cache.get(1L).get());
+        assertEquals(1, cache.statistics().l1Hits());
+        verify(cacheManager, never()).publishEvict("todos", List.of("1"));
+    }
+
+    @Test
+    void patch_ShouldRerunUpdateOnTheValueAnotherNodeWrote() {
+        cache.put(1L, "todo");
+        AtomicInteger runs = new AtomicInteger();
+
+        cache.patch(1L, cached -> {
+            if (runs.incrementAndGet() == 1) {
+                l2.put(1L, "written elsewhere");
+            }
+            return cached + " patched";
+        });
+
+        assertEquals(2, runs.get());
+        assertEquals("written elsewhere patched", l2.get(1L).get());
+    }
+
+    @Test
+    void evictLocal_ShouldKeepL2Entry() {
+        cache.put(1L, "todo");
+
+        cache.evictLocal("1");
+
+        assertEquals("todo", cache.get(1L).get());
+        assertEquals(1, cache.statistics().l2Hits());
+    }
+
+    /**
+     * Reads {@link #UNKNOWN_SCHEMA} the way {@code RedisCache} reads a value {@link TodoCacheCodec} cannot decode:
+     * as a miss from {@code get}, but as a present entry with a {@code null} value from {@code putIfAbsent}.
+     */
+    private static final class UnreadableEntriesCache extends ConcurrentMapCache {
+        private static final Object UNKNOWN_SCHEMA = new Object();
+
+        private UnreadableEntriesCache(String name) {
+            super(name);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            return value == UNKNOWN_SCHEMA ? null : value;
+        }
+
+        @Override
+        protected Object fromStoreValue(Object storeValue) {
+            return storeValue == UNKNOWN_SCHEMA ? null : super.fromStoreValue(storeValue);
+        }
+    }
+
+    /**
+     * Compare-and-set over the {@link ConcurrentMapCache} L2, standing in for {@link RedisEntryUpdater}.
+     */
+    private record MapEntryUpdater(ConcurrentMap<Object, Object> entries) implements L2EntryUpdater {
+
+        @Override
+        public boolean update(Object key, UnaryOperator<Object> update) {
+            while (true) {
+                Object current = entries.get(key);
+                Object value = current == NullValue.INSTANCE ? null : current;
+                Object updated = update.apply(value);
+                if (updated == value) {
+                    return false;
+                }
+                if (compareAndSet(key, current, updated)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public boolean replace(Object key, UnaryOperator<Object> update) {
+            Object current = entries.get(key);
+            Object value = current == NullValue.INSTANCE ? null : current;
+            Object updated = update.apply(value);
+            return updated != value && compareAndSet(key, current, updated);
+        }
+
+        private boolean compareAndSet(Object key, Object current, Object updated) {
+            if (updated == null) {
+                return entries.remove(key, current);
+            }
+            return current == null ? entries.putIfAbsent(key, updated) == null : entries.replace(key, current, updated);
+        }
+    }
+}
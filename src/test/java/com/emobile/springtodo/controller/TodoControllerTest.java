@@ -1,10 +1,16 @@
 package com.emobile.springtodo.controller;
 
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.cache.TwoTierCacheManager;
 import com.emobile.springtodo.entity.User;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoSuggestion;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
 import com.emobile.springtodo.exception.TodoNotFoundException;
+import com.emobile.springtodo.exception.TodoVersionConflictException;
 import com.emobile.springtodo.repository.UserRepository;
 import com.emobile.springtodo.repository.todo.TodoRepository;
 import com.emobile.springtodo.security.CustomUserDetails;
@@ -54,13 +60,21 @@ class TodoControllerTest extends AbstractRestControllerBaseTest{
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private TodoChangeMarker changeMarker;
+
     private Principal principal;
 
     @BeforeEach
     void cleanDatabase() {
         jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE todo_tombstone");
         jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
         Objects.requireNonNull(redisTemplate.getConnectionFactory()).getConnection().flushDb();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
 
         createTestUser();
         CustomUserDetails userDetails = new CustomUserDetails(1L, "testUser", "password", List.of());
@@ -101,6 +115,85 @@ class TodoControllerTest extends AbstractRestControllerBaseTest{
         assertTrue(response.isCompleted());
     }
 
+    @Test
+    void updateTodo_ShouldPatchCachedEntries() {
+        todoService.saveTodo(new TodoCreateRequest("New Todo", "Description"), principal);
+        todoService.findTodoById(1L, principal);
+        todoService.allTodosByPrincipalWithPagination(principal, 1, 10);
+
+        TodoResponse updated = todoService.updateTodo(
+                new TodoUpdateRequest(1L, "Updated Todo", "Updated Description", true), principal);
+
+        assertEquals(updated.getCreatedAt(), todoService.findTodoById(1L, principal).getCreatedAt());
+        assertEquals("Updated Todo", todoService.findTodoById(1L, principal).getTitle());
+        assertEquals("Updated Todo", todoService.allTodosByPrincipalWithPagination(principal, 1, 10).get(0).getTitle());
+    }
+
+    @Test
+    void updateTodo_ShouldRejectStaleVersion() {
+        todoService.saveTodo(new TodoCreateRequest("New Todo", "Description"), principal);
+        TodoUpdateRequest request = new TodoUpdateRequest(1L, "Updated Todo", "Updated Description", true);
+
+        TodoResponse updated = todoService.updateTodo(request, 0L, principal);
+
+        assertEquals(1L, updated.getVersion());
+        assertThrows(TodoVersionConflictException.class, () -> todoService.updateTodo(request, 0L, principal));
+        assertEquals(1L, todoService.findTodoById(1L, principal).getVersion());
+    }
+
+    @Test
+    void changesSince_ShouldReturnOnlyChangesAfterWatermark() {
+        todoService.saveTodo(new TodoCreateRequest("First", "Description"), principal);
+        todoService.saveTodo(new TodoCreateRequest("Second", "Description"), principal);
+
+        TodoChangesResponse initial = todoService.changesSince(principal, null, 100);
+        assertEquals(2, initial.getChanged().size());
+        assertTrue(todoService.changesSince(principal, initial.getWatermark(), 100).getChanged().isEmpty());
+
+        todoService.updateTodo(new TodoUpdateRequest(2L, "Second", "Changed", true), principal);
+        jdbcTemplate.update("DELETE FROM todo WHERE id = ?", 1L);
+        changeMarker.touch(1L);
+
+        TodoChangesResponse delta = todoService.changesSince(principal, initial.getWatermark(), 100);
+        assertEquals(List.of(2L), delta.getChanged().stream().map(TodoResponse::getId).toList());
+        assertEquals(List.of(1L), delta.getDeleted());
+    }
+
+    @Test
+    void searchTodos_ShouldRankTitleMatchesFirstAndPageByCursor() {
+        todoService.saveTodo(new TodoCreateRequest("Groceries", "buy milk and bread"), principal);
+        todoService.saveTodo(new TodoCreateRequest("Milk the cow", "before noon"), principal);
+        todoService.saveTodo(new TodoCreateRequest("Unrelated", "nothing here"), principal);
+
+        TodoSearchResponse first = todoService.searchTodos(principal, "milk", null, 1);
+        assertEquals(List.of("Milk the cow"), first.getTodos().stream().map(TodoResponse::getTitle).toList());
+
+        TodoSearchResponse second = todoService.searchTodos(principal, "milk", first.getNextCursor(), 1);
+        assertEquals(List.of("Groceries"), second.getTodos().stream().map(TodoResponse::getTitle).toList());
+        assertTrue(todoService.searchTodos(principal, "milk", second.getNextCursor(), 1).getTodos().isEmpty());
+    }
+
+    @Test
+    void suggestTodos_ShouldSeeTodosSavedAfterIndexWasLoaded() {
+        todoService.saveTodo(new TodoCreateRequest("Groceries", null), principal);
+        assertEquals(List.of("Groceries"), titles(todoService.suggestTodos(principal, "gro", 10)));
+
+        todoService.saveTodo(new TodoCreateRequest("Grout the bathroom", null), principal);
+
+        assertEquals(List.of("Groceries", "Grout the bathroom"), titles(todoService.suggestTodos(principal, "gro", 10)));
+    }
+
+    @Test
+    void saveTodo_ShouldAppendToCachedLastPage() {
+        todoService.saveTodo(new TodoCreateRequest("First", "Description"), principal);
+        todoService.allTodosByPrincipalWithPagination(principal, 1, 10);
+
+        todoService.saveTodo(new TodoCreateRequest("Second", "Description"), principal);
+
+        List<TodoResponse> page = todoService.allTodosByPrincipalWithPagination(principal, 1, 10);
+        assertEquals(List.of("First", "Second"), page.stream().map(TodoResponse::getTitle).toList());
+    }
+
     @Test
     void getAll_CompletedTodos_ShouldBeEmptySize() {
         List<TodoResponse> todoResponses = todoService.allTodosCompletedByPrincipal(principal);
@@ -120,6 +213,10 @@ class TodoControllerTest extends AbstractRestControllerBaseTest{
     }
     
 
+    private static List<String> titles(List<TodoSuggestion> suggestions) {
+        return suggestions.stream().map(TodoSuggestion::title).toList();
+    }
+
     private void createTestUser() {
         User user = new User();
         user.setUsername("testUser");
@@ -0,0 +1,205 @@
+package com.emobile.springtodo.datasource;
+
+import com.emobile.springtodo.security.CustomUserDetails;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource replica;
+
+    @Mock
+    private ReadYourWritesTracker readYourWrites;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+        lenient().when(replica.getPoolName()).thenReturn("todo-replica-0");
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(replica), readYourWrites, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getConnection_ShouldUseReplicaForUserWithoutRecentWrites() throws SQLException {
+        authenticate(1L);
+
+        assertSame(replicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldStayOnPrimaryAfterUserWrote() throws SQLException {
+        authenticate(1L);
+        when(readYourWrites.wroteRecently(1L)).thenReturn(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldStayOnPrimaryWithoutAuthentication() throws SQLException {
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldStayOnPrimaryInsideOnPrimary() {
+        authenticate(1L);
+
+        Connection connection = ReplicaRoutingDataSource.onPrimary(this::connect);
+
+        assertSame(primaryConnection, connection);
+    }
+
+    @Test
+    void getConnection_ShouldUseReplicaForAnonymousLookupInsideOnReplica() {
+        Optional<Connection> connection = ReplicaRoutingDataSource.onReplica(() -> Optional.of(connect()));
+
+        assertEquals(Optional.of(replicaConnection), connection);
+    }
+
+    @Test
+    void onReplica_ShouldRepeatLookupOnPrimary_WhenReplicaFindsNothing() {
+        List<Connection> connections = new ArrayList<>();
+
+        Optional<Connection> found = ReplicaRoutingDataSource.onReplica(() -> {
+            connections.add(connect());
+            return Optional.empty();
+        });
+
+        assertTrue(found.isEmpty());
+        assertEquals(List.of(replicaConnection, primaryConnection), connections);
+    }
+
+    @Test
+    void onReplica_ShouldNotRepeatLookup_WhenPrimaryAlreadyServedIt() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        List<Connection> connections = new ArrayList<>();
+
+        ReplicaRoutingDataSource.onReplica(() -> {
+            connections.add(connect());
+            return Optional.empty();
+        });
+
+        assertEquals(List.of(primaryConnection), connections);
+    }
+
+    @Test
+    void getConnection_ShouldDelegateCredentialsToChosenRoute() throws SQLException {
+        authenticate(1L);
+        when(replica.getConnection("reader", "secret")).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, dataSource.getConnection("reader", "secret"));
+    }
+
+    @Test
+    void getConnection_ShouldFallBackToPrimaryWhenReplicaIsUnreachable() throws SQLException {
+        authenticate(1L);
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void checkLag_ShouldTakeLaggingReplicaOutUntilItCatchesUp() throws SQLException {
+        authenticate(1L);
+        ResultSet lag = replicaReportingLag();
+        when(lag.getDouble(1)).thenReturn(5.0, 0.5);
+
+        dataSource.checkLag();
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        dataSource.checkLag();
+        assertSame(replicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void checkLag_ShouldTakeReplicaOut_WhenItIsNotReceivingWal() throws SQLException {
+        authenticate(1L);
+        ResultSet lag = replicaReportingLag();
+        when(lag.getDouble(1)).thenReturn(0.0);
+        when(lag.wasNull()).thenReturn(true);
+
+        dataSource.checkLag();
+
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void bindTo_ShouldCountReadsByRouteAndReason() throws SQLException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dataSource.bindTo(registry);
+
+        dataSource.getConnection();
+        authenticate(1L);
+        dataSource.getConnection();
+
+        assertEquals(1, registry.get(ReplicaRoutingDataSource.READS_METER)
+                .tags("route", "primary", "reason", "unattributed").functionCounter().count());
+        assertEquals(1, registry.get(ReplicaRoutingDataSource.READS_METER)
+                .tags("route", "replica", "reason", "replica").functionCounter().count());
+        assertEquals(1, registry.get("todo.datasource.replica.usable").tag("pool", "todo-replica-0").gauge().value());
+    }
+
+    private Connection connect() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ResultSet replicaReportingLag() throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        return resultSet;
+    }
+
+    private static void authenticate(Long userId) {
+        CustomUserDetails user = new CustomUserDetails(userId, "user" + userId, "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+}
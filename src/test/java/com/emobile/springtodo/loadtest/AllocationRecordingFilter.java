@@ -0,0 +1,74 @@
+package com.emobile.springtodo.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes allocated by the request thread while serving each endpoint, keyed like the load test's own labels
+ * ({@code METHOD /pattern}). Work handed off to other threads, such as password hashing, is not included.
+ * Requests on a thread the JVM does not measure, such as a virtual thread on some JDKs, are left out of both the
+ * bytes and the request count, so the per-request figure stays an average over measured requests only.
+ */
+class AllocationRecordingFilter extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // -1 when the current thread is not measured
+            long after = THREADS.getCurrentThreadAllocatedBytes();
+            if (before >= 0 && after >= 0) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+                Counter counter = counters.computeIfAbsent(endpoint, key -> new Counter());
+                counter.bytes.add(after - before);
+                counter.requests.increment();
+            }
+        }
+    }
+
+    Map<String, Allocation> snapshot() {
+        return allocatedSince(Map.of());
+    }
+
+    Map<String, Allocation> allocatedSince(Map<String, Allocation> snapshot) {
+        Map<String, Allocation> allocated = new HashMap<>();
+        counters.forEach((endpoint, counter) -> {
+            Allocation earlier = snapshot.getOrDefault(endpoint, Allocation.NONE);
+            allocated.put(endpoint, new Allocation(counter.bytes.sum() - earlier.bytes(),
+                    counter.requests.sum() - earlier.requests()));
+        });
+        return allocated;
+    }
+
+    /**
+     * Bytes allocated by {@code requests} measured requests.
+     */
+    record Allocation(long bytes, long requests) {
+        static final Allocation NONE = new Allocation(0, 0);
+    }
+
+    private static final class Counter {
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+    }
+}
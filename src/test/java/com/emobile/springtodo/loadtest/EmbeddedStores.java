@@ -0,0 +1,66 @@
+package com.emobile.springtodo.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * PostgreSQL and Redis binaries unpacked from the test classpath and started in-process, so the load test runs
+ * without Docker or network access. Both are started once per JVM and stopped on shutdown.
+ */
+final class EmbeddedStores {
+
+    private static EmbeddedPostgres postgres;
+    private static RedisServer redis;
+    private static int redisPort;
+
+    private EmbeddedStores() {
+    }
+
+    static synchronized void start() {
+        if (postgres != null) {
+            return;
+        }
+        try {
+            postgres = EmbeddedPostgres.builder()
+                    .setServerConfig("max_connections", "200")
+                    .start();
+            redisPort = freePort();
+            redis = new RedisServer(redisPort);
+            redis.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded stores failed to start", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(EmbeddedStores::stop, "embedded-stores-shutdown"));
+    }
+
+    static String jdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    static int redisPort() {
+        return redisPort;
+    }
+
+    private static synchronized void stop() {
+        try {
+            if (redis != null) {
+                redis.stop();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        } catch (IOException ignored) {
+            // the JVM is going away either way
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
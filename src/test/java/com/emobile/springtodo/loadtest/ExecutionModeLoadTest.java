@@ -0,0 +1,147 @@
+package com.emobile.springtodo.loadtest;
+
+import com.emobile.springtodo.SpringToDoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application once on platform threads and once on virtual threads, against the same
+ * {@link EmbeddedStores}, and holds {@code loadtest.connections} concurrent connections (5 000 by default) on
+ * {@code GET /v1/api/todos/{todoId}} against each. It prints throughput, latency and errors per mode and writes them
+ * to {@code target/loadtest/execution-modes.json}.
+ * <pre>
+ * mvn -Ploadtest test -Dloadtest.test=ExecutionModeLoadTest -Dloadtest.connections=5000
+ * </pre>
+ * Client and server share the JVM, so the open file limit must allow about twice the connection count.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ExecutionModeLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 5_000);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.mode-warmup", "10s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.mode-duration", "30s"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+    private static final File RESULT = new File(System.getProperty("loadtest.result-dir", "target/loadtest"),
+            "execution-modes.json");
+
+    private static final String FIND_BY_ID = "GET /v1/api/todos/{todoId}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void virtualThreadsHoldFiveThousandConnections() throws Exception {
+        EmbeddedStores.start();
+
+        Map<String, LoadTestResults.EndpointSummary> modes = new LinkedHashMap<>();
+        modes.put("platform", run(false));
+        modes.put("virtual", run(true));
+
+        LoadTestResults.Summary summary = new LoadTestResults.Summary(CONNECTIONS, DURATION.toSeconds(), modes);
+        summary.print();
+        summary.write(RESULT);
+
+        LoadTestResults.EndpointSummary virtual = modes.get("virtual");
+        assertTrue(virtual.errors() <= virtual.requests() * MAX_ERROR_RATE,
+                "virtual threads failed %d of %d requests".formatted(virtual.errors(), virtual.requests()));
+    }
+
+    private LoadTestResults.EndpointSummary run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext application = new SpringApplicationBuilder(SpringToDoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "management.server.port=-1",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=" + EmbeddedStores.jdbcUrl(),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.data.redis.host=localhost",
+                        "spring.data.redis.port=" + EmbeddedStores.redisPort())
+                .run()) {
+            String baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+            String token = registerUser(baseUrl, "mode-" + virtualThreads + "-" + System.currentTimeMillis());
+            String todoUrl = baseUrl + "/v1/api/todos/" + createTodo(baseUrl, token);
+
+            LoadTestResults warmup = new LoadTestResults();
+            LoadTestResults measured = new LoadTestResults();
+            long deadline = System.nanoTime() + WARMUP.toNanos() + DURATION.toNanos();
+            long measureFrom = System.nanoTime() + WARMUP.toNanos();
+            // one virtual client thread per connection, so the client side is not what caps concurrency
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CONNECTIONS; i++) {
+                    clients.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            send(System.nanoTime() < measureFrom ? warmup : measured,
+                                    HttpRequest.newBuilder(URI.create(todoUrl))
+                                            .timeout(Duration.ofSeconds(30))
+                                            .header("Authorization", "Bearer " + token)
+                                            .GET());
+                        }
+                    });
+                }
+                clients.shutdown();
+                assertTrue(clients.awaitTermination(DURATION.toSeconds() + WARMUP.toSeconds() + 60, TimeUnit.SECONDS),
+                        "clients did not stop");
+            }
+            return measured.summarize(DURATION.toSeconds(), Map.of()).get(FIND_BY_ID);
+        }
+    }
+
+    private String registerUser(String baseUrl, String username) throws IOException, InterruptedException {
+        String credentials = objectMapper.writeValueAsString(Map.of("username", username, "password", "password"));
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private long createTodo(String baseUrl, String token) throws IOException, InterruptedException {
+        String todo = objectMapper.writeValueAsString(Map.of("title", "Execution mode", "description", "load test"));
+        httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/api/todos"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(todo))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<String> todos = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/api/todos?page=1&size=1"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode first = objectMapper.readTree(todos.body()).get(0);
+        return first.path("id").asLong();
+    }
+
+    private void send(LoadTestResults results, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            results.record(FIND_BY_ID, System.nanoTime() - start, response.statusCode() >= 400);
+        } catch (IOException e) {
+            results.record(FIND_BY_ID, System.nanoTime() - start, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
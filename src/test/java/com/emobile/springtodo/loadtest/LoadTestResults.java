@@ -0,0 +1,124 @@
+package com.emobile.springtodo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side latency and error counts per endpoint during a load test run, and the JSON summary that is written
+ * after it and compared against a stored baseline.
+ */
+class LoadTestResults {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean failed) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.latencyMicros.recordValue(Math.max(1, latencyNanos / 1_000));
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Per-endpoint figures over a phase that lasted {@code seconds}, with the server-side bytes allocated per
+     * endpoint during the same phase. Allocation is -1 for an endpoint with no measured request.
+     */
+    Map<String, EndpointSummary> summarize(double seconds, Map<String, AllocationRecordingFilter.Allocation> allocations) {
+        Map<String, EndpointSummary> summaries = new LinkedHashMap<>();
+        endpoints.keySet().stream().sorted().forEach(name -> {
+            Histogram latency = endpoints.get(name).latencyMicros;
+            long requests = latency.getTotalCount();
+            AllocationRecordingFilter.Allocation allocation =
+                    allocations.getOrDefault(name, AllocationRecordingFilter.Allocation.NONE);
+            long bytesPerRequest = allocation.requests() == 0 ? -1 : allocation.bytes() / allocation.requests();
+            summaries.put(name, new EndpointSummary(
+                    requests,
+                    endpoints.get(name).errors.sum(),
+                    requests / seconds,
+                    latency.getValueAtPercentile(50) / 1_000.0,
+                    latency.getValueAtPercentile(99) / 1_000.0,
+                    latency.getValueAtPercentile(99.9) / 1_000.0,
+                    bytesPerRequest,
+                    bytesPerRequest < 0 ? -1 : bytesPerRequest * requests / seconds / (1024 * 1024)));
+        });
+        return summaries;
+    }
+
+    record Summary(int users, double seconds, Map<String, EndpointSummary> endpoints) {
+
+        static Summary read(File file) throws IOException {
+            return OBJECT_MAPPER.readValue(file, Summary.class);
+        }
+
+        void write(File file) throws IOException {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+            OBJECT_MAPPER.writeValue(file, this);
+        }
+
+        void print() {
+            System.out.printf("%n%d users, %.0f s measured%n", users, seconds);
+            System.out.printf("%-32s %9s %7s %10s %9s %9s %9s %12s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "alloc B/req", "alloc MB/s");
+            endpoints.forEach((name, e) -> System.out.printf("%-32s %9d %7d %10.1f %9.2f %9.2f %9.2f %12d %9.1f%n",
+                    name, e.requests, e.errors, e.throughput, e.p50Millis, e.p99Millis, e.p999Millis,
+                    e.allocatedBytesPerRequest, e.allocationMegabytesPerSecond));
+        }
+
+        /**
+         * Endpoints whose throughput fell, or whose p99 latency or allocation per request rose, by more than
+         * {@code tolerance} (0.2 = 20%) against the same endpoint in {@code baseline}.
+         */
+        List<String> regressionsAgainst(Summary baseline, double tolerance) {
+            List<String> regressions = new ArrayList<>();
+            endpoints.forEach((name, current) -> {
+                EndpointSummary before = baseline.endpoints.get(name);
+                if (before == null) {
+                    return;
+                }
+                if (current.throughput < before.throughput * (1 - tolerance)) {
+                    regressions.add("%s throughput %.1f -> %.1f req/s".formatted(name, before.throughput, current.throughput));
+                }
+                if (current.p99Millis > before.p99Millis * (1 + tolerance)) {
+                    regressions.add("%s p99 %.2f -> %.2f ms".formatted(name, before.p99Millis, current.p99Millis));
+                }
+                if (before.allocatedBytesPerRequest >= 0 && current.allocatedBytesPerRequest >= 0
+                        && current.allocatedBytesPerRequest > before.allocatedBytesPerRequest * (1 + tolerance)) {
+                    regressions.add("%s allocation %d -> %d B/req".formatted(name,
+                            before.allocatedBytesPerRequest, current.allocatedBytesPerRequest));
+                }
+            });
+            return regressions;
+        }
+    }
+
+    record EndpointSummary(long requests,
+                           long errors,
+                           double throughput,
+                           double p50Millis,
+                           double p99Millis,
+                           double p999Millis,
+                           long allocatedBytesPerRequest,
+                           double allocationMegabytesPerSecond) {
+    }
+
+    private static final class Endpoint {
+        private final Histogram latencyMicros = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,272 @@
+package com.emobile.springtodo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test over HTTP against the whole application, backed by {@link EmbeddedStores} so it needs
+ * neither Docker nor network access. Every virtual user registers and logs in, then runs a seeded mix of create,
+ * update, list and completed-list requests until the run ends.
+ * <pre>
+ * mvn -Ploadtest test -Dloadtest.users=64 -Dloadtest.warmup=15s -Dloadtest.duration=60s
+ * </pre>
+ * The summary goes to {@code target/loadtest/result.json}. The test fails on any endpoint that regressed past
+ * {@code loadtest.tolerance} (0.2 by default) against {@code src/test/resources/loadtest/baseline.json}, and when
+ * there is no baseline, since a run that compares against nothing proves nothing. The baseline is machine specific:
+ * {@code -Dloadtest.update-baseline=true} records one from the current run on the machine that will compare
+ * against it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=-1")
+@Import(TodoLoadTest.AllocationConfig.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class TodoLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 32);
+    private static final Duration WARMUP = duration("loadtest.warmup", "15s");
+    private static final Duration DURATION = duration("loadtest.duration", "60s");
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+    private static final File RESULT = new File(System.getProperty("loadtest.result", "target/loadtest/result.json"));
+    private static final File BASELINE = new File(System.getProperty("loadtest.baseline",
+            "src/test/resources/loadtest/baseline.json"));
+
+    private static final String REGISTER = "POST /v1/api/auth/register";
+    private static final String LOGIN = "POST /v1/api/auth/login";
+    private static final String CREATE = "POST /v1/api/todos";
+    private static final String UPDATE = "PUT /v1/api/todos";
+    private static final String LIST = "GET /v1/api/todos";
+    private static final String COMPLETED = "GET /v1/api/todos/completed";
+
+    /**
+     * Cumulative weights out of 100: create 25, update 20, list 40, completed 15.
+     */
+    private static final int CREATE_UNTIL = 25;
+    private static final int UPDATE_UNTIL = 45;
+    private static final int LIST_UNTIL = 85;
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LoadTestResults authResults = new LoadTestResults();
+    private final LoadTestResults mixResults = new LoadTestResults();
+    private final LoadTestResults warmupResults = new LoadTestResults();
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AllocationRecordingFilter allocations;
+
+    @DynamicPropertySource
+    static void embeddedStores(DynamicPropertyRegistry registry) {
+        EmbeddedStores.start();
+        registry.add("spring.datasource.url", EmbeddedStores::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", EmbeddedStores::redisPort);
+    }
+
+    @Test
+    void mixedWorkload_ShouldNotRegressAgainstBaseline() throws Exception {
+        ExecutorService users = Executors.newFixedThreadPool(USERS);
+        CountDownLatch authenticated = new CountDownLatch(USERS);
+
+        long authStart = System.nanoTime();
+        for (int user = 0; user < USERS; user++) {
+            SplittableRandom random = new SplittableRandom(SEED + user);
+            String username = "load-" + SEED + "-" + user + "-" + System.currentTimeMillis();
+            users.submit(() -> runUser(username, random, authenticated));
+        }
+        authenticated.await();
+        double authSeconds = seconds(System.nanoTime() - authStart);
+        Map<String, AllocationRecordingFilter.Allocation> authAllocations = allocations.allocatedSince(Map.of());
+
+        Thread.sleep(WARMUP.toMillis());
+        Map<String, AllocationRecordingFilter.Allocation> beforeMix = allocations.snapshot();
+        long mixStart = System.nanoTime();
+        measuring = true;
+        Thread.sleep(DURATION.toMillis());
+        measuring = false;
+        double mixSeconds = seconds(System.nanoTime() - mixStart);
+        Map<String, AllocationRecordingFilter.Allocation> mixAllocations = allocations.allocatedSince(beforeMix);
+
+        stopped = true;
+        users.shutdown();
+        assertTrue(users.awaitTermination(30, TimeUnit.SECONDS), "virtual users did not stop");
+
+        Map<String, LoadTestResults.EndpointSummary> endpoints = new LinkedHashMap<>();
+        endpoints.putAll(authResults.summarize(authSeconds, authAllocations));
+        endpoints.putAll(mixResults.summarize(mixSeconds, mixAllocations));
+        LoadTestResults.Summary summary = new LoadTestResults.Summary(USERS, mixSeconds, endpoints);
+        summary.print();
+        summary.write(RESULT);
+
+        List<String> failures = new ArrayList<>();
+        endpoints.forEach((name, endpoint) -> {
+            if (endpoint.errors() > endpoint.requests() * MAX_ERROR_RATE) {
+                failures.add("%s failed %d of %d requests".formatted(name, endpoint.errors(), endpoint.requests()));
+            }
+        });
+        if (Boolean.getBoolean("loadtest.update-baseline")) {
+            summary.write(BASELINE);
+            System.out.println("Baseline written to " + BASELINE);
+        } else if (BASELINE.isFile()) {
+            failures.addAll(summary.regressionsAgainst(LoadTestResults.Summary.read(BASELINE), TOLERANCE));
+        } else {
+            failures.add("No baseline at " + BASELINE + ", run with -Dloadtest.update-baseline=true to record one");
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    private void runUser(String username, SplittableRandom random, CountDownLatch authenticated) {
+        String token;
+        try {
+            String credentials = objectMapper.writeValueAsString(Map.of("username", username, "password", "password"));
+            send(authResults, REGISTER, post("/v1/api/auth/register", credentials, null));
+            JsonNode login = send(authResults, LOGIN, post("/v1/api/auth/login", credentials, null));
+            token = login != null ? login.path("token").asText(null) : null;
+        } finally {
+            authenticated.countDown();
+        }
+        if (token == null) {
+            return;
+        }
+
+        List<Long> todoIds = new ArrayList<>();
+        int created = 0;
+        while (!stopped) {
+            LoadTestResults results = measuring ? mixResults : warmupResults;
+            int roll = random.nextInt(100);
+            if (roll < CREATE_UNTIL || todoIds.isEmpty() && roll < UPDATE_UNTIL) {
+                send(results, CREATE, post("/v1/api/todos", todo(null, "Todo " + created, random), token));
+                created++;
+            } else if (roll < UPDATE_UNTIL) {
+                Long id = todoIds.get(random.nextInt(todoIds.size()));
+                send(results, UPDATE, request("/v1/api/todos", token)
+                        .PUT(HttpRequest.BodyPublishers.ofString(todo(id, "Todo " + id + " edited", random))));
+            } else if (roll < LIST_UNTIL) {
+                int page = 1 + random.nextInt(Math.max(1, (created + PAGE_SIZE - 1) / PAGE_SIZE));
+                JsonNode todos = send(results, LIST, request("/v1/api/todos?page=" + page + "&size=" + PAGE_SIZE, token).GET());
+                if (todos != null && page == 1) {
+                    todoIds.clear();
+                    todos.forEach(todo -> todoIds.add(todo.path("id").asLong()));
+                }
+            } else {
+                send(results, COMPLETED, request("/v1/api/todos/completed", token).GET());
+            }
+        }
+    }
+
+    private String todo(Long id, String title, SplittableRandom random) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (id != null) {
+            body.put("id", id);
+            body.put("completed", random.nextBoolean());
+        }
+        body.put("title", title);
+        body.put("description", "Load test todo " + random.nextInt(1_000_000));
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder post(String path, String json, String token) {
+        return request(path, token).POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        return token != null ? request.header("Authorization", "Bearer " + token) : request;
+    }
+
+    /**
+     * Sends the request and records its latency under {@code endpoint}; returns the parsed body of a successful
+     * response that has one, {@code null} otherwise.
+     */
+    private JsonNode send(LoadTestResults results, String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            boolean failed = response.statusCode() >= 400;
+            results.record(endpoint, System.nanoTime() - start, failed);
+            return failed || response.body().length == 0 ? null : objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            results.record(endpoint, System.nanoTime() - start, true);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return Duration.parse("PT" + System.getProperty(property, defaultValue));
+    }
+
+    @TestConfiguration
+    static class AllocationConfig {
+
+        @Bean
+        AllocationRecordingFilter allocationRecordingFilter() {
+            return new AllocationRecordingFilter();
+        }
+
+        @Bean
+        FilterRegistrationBean<AllocationRecordingFilter> allocationRecordingFilterRegistration(
+                AllocationRecordingFilter filter) {
+            FilterRegistrationBean<AllocationRecordingFilter> registration = new FilterRegistrationBean<>(filter);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+}
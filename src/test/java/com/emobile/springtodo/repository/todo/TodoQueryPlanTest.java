@@ -0,0 +1,170 @@
+package com.emobile.springtodo.repository.todo;
+
+import com.emobile.springtodo.utils.AbstractRestControllerBaseTest;
+import com.emobile.springtodo.utils.RedisTestContainerConfig;
+import com.emobile.springtodo.utils.TodoDatasetGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails when a {@link TodoRepository} query would read the todo table with a sequential scan, or would touch
+ * more than one of its hash partitions.
+ * The default dataset is small enough for the regular run; pass
+ * {@code -Dtodo.dataset.users=100 -Dtodo.dataset.todos-per-user=50000} to check the plans against millions of rows.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {RedisTestContainerConfig.class})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TodoQueryPlanTest extends AbstractRestControllerBaseTest {
+
+    private static final Pattern TODO_RELATION = Pattern.compile("todo(_p\\d+)?");
+    private static final Pattern TODO_PARTITION = Pattern.compile("todo_p\\d+");
+    private static final Set<String> UNPLANNED = Set.of("TODO_COLUMNS", "INSERT_TODO", "INSERT_TODO_RETURNING", "COPY_TODOS",
+            "WITH_PREVIOUS_TODO");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private long userId;
+    private long todoId;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE TABLE todo RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE users RESTART IDENTITY CASCADE");
+
+        List<Long> userIds = new TodoDatasetGenerator(jdbcTemplate).seed(
+                Integer.getInteger("todo.dataset.users", 50),
+                Long.getLong("todo.dataset.todos-per-user", 2_000L));
+        userId = userIds.get(userIds.size() / 2);
+        todoId = jdbcTemplate.queryForObject("SELECT max(id) FROM todo WHERE user_id = ?", Long.class, userId);
+    }
+
+    Stream<Arguments> queries() {
+        Timestamp cursor = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 10));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return Stream.of(
+                Arguments.of("SELECT_ALL_TODOS", new Object[]{userId, 10, 100}),
+                Arguments.of("SELECT_FIRST_TODOS", new Object[]{userId, 10}),
+                Arguments.of("SELECT_TODOS_AFTER_CURSOR", new Object[]{userId, cursor, 500L, 10}),
+                Arguments.of("SELECT_TODOS_FOR_EXPORT", new Object[]{userId}),
+                Arguments.of("SELECT_COMPLETED_TODOS", new Object[]{userId}),
+                Arguments.of("SELECT_TODO_BY_ID", new Object[]{todoId, userId}),
+                Arguments.of("UPDATE_TODO", new Object[]{"title", "description", true, now, todoId, userId}),
+                Arguments.of("UPDATE_TODO_RETURNING", new Object[]{todoId, userId, "title", "description", true, now, todoId, userId}),
+                Arguments.of("UPDATE_TODO_IF_VERSION_RETURNING", new Object[]{todoId, userId, "title", "description", true, now, todoId, userId, 0L}),
+                Arguments.of("SELECT_TODO_VERSION", new Object[]{todoId, userId}),
+                Arguments.of("SELECT_CHANGED_TODOS", new Object[]{userId, "1000", 500L, 100}),
+                Arguments.of("SELECT_TODO_TOMBSTONES", new Object[]{userId, "1000", 500L, 100}),
+                Arguments.of("SEARCH_FIRST_TODOS", new Object[]{"todo", userId, 20}),
+                Arguments.of("SEARCH_TODOS_AFTER_CURSOR", new Object[]{"todo", userId, 0.5f, todoId, 20}),
+                Arguments.of("SELECT_TODO_TITLES", new Object[]{userId}),
+                Arguments.of("SUGGEST_TODOS", new Object[]{userId, "todo:*A & 4:*A", 10})
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryShouldNotScanWholeTodoTable(String constant, Object[] params) throws Exception {
+        String sql = (String) TodoRepository.class.getField(constant).get(null);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, params);
+
+        List<String> seqScans = new ArrayList<>();
+        Set<String> partitions = new TreeSet<>();
+        collectTodoScans(objectMapper.readTree(plan).get(0).get("Plan"), seqScans, partitions);
+
+        assertTrue(seqScans.isEmpty(), constant + " uses a sequential scan on " + seqScans + ":\n" + plan);
+        assertTrue(partitions.size() <= 1, constant + " is not pruned to one partition " + partitions + ":\n" + plan);
+    }
+
+    /**
+     * Lookups by id need no index of their own: the primary key finds the single row, and {@code user_id} is
+     * checked on it.
+     */
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"SELECT_TODO_BY_ID", "SELECT_TODO_VERSION"})
+    void byIdLookupShouldUsePrimaryKey(String constant) throws Exception {
+        String sql = (String) TodoRepository.class.getField(constant).get(null);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, todoId, userId);
+
+        List<String> indexes = new ArrayList<>();
+        collectTodoIndexes(objectMapper.readTree(plan).get(0).get("Plan"), indexes);
+
+        assertFalse(indexes.isEmpty(), constant + " uses no index:\n" + plan);
+        assertTrue(indexes.stream().allMatch(index -> index.endsWith("_pkey")),
+                constant + " uses " + indexes + " instead of the primary key:\n" + plan);
+    }
+
+    @Test
+    void everyRepositoryQueryIsCoveredByPlanCheck() {
+        Set<String> covered = queries()
+                .map(arguments -> (String) arguments.get()[0])
+                .collect(Collectors.toSet());
+        Set<String> declared = Arrays.stream(TodoRepository.class.getFields())
+                .filter(field -> Modifier.isStatic(field.getModifiers()) && field.getType() == String.class)
+                .map(Field::getName)
+                .filter(name -> !UNPLANNED.contains(name))
+                .collect(Collectors.toSet());
+
+        assertEquals(declared, covered, "add new TodoRepository queries to TodoQueryPlanTest#queries");
+    }
+
+    private static void collectTodoScans(JsonNode node, List<String> seqScans, Set<String> partitions) {
+        String relation = node.path("Relation Name").asText();
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && TODO_RELATION.matcher(relation).matches()) {
+            seqScans.add(relation);
+        }
+        if (TODO_PARTITION.matcher(relation).matches()) {
+            partitions.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectTodoScans(child, seqScans, partitions);
+        }
+    }
+
+    private static void collectTodoIndexes(JsonNode node, List<String> indexes) {
+        // bitmap index scans name no relation, and these queries read no other table
+        if (node.has("Index Name")) {
+            indexes.add(node.path("Index Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectTodoIndexes(child, indexes);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.emobile.springtodo.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "SecretKeyForJWTGeneration12345678");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheExecutor", ForkJoinPool.commonPool());
+        jwtUtil.init();
+    }
+
+    @Test
+    void toUserDetails_ShouldRestorePrincipalFromClaims() {
+        String token = jwtUtil.generateToken(new CustomUserDetails(42L, "testUser", "password",
+                List.of(new SimpleGrantedAuthority("USER"))));
+
+        VerifiedToken verified = jwtUtil.parseToken(token);
+        CustomUserDetails userDetails = jwtUtil.toUserDetails(verified);
+
+        assertNotNull(verified.id());
+        assertNotNull(verified.expiration());
+        assertEquals(42L, userDetails.getUserId());
+        assertEquals("testUser", userDetails.getUsername());
+        assertEquals(List.of(new SimpleGrantedAuthority("USER")), List.copyOf(userDetails.getAuthorities()));
+    }
+
+    @Test
+    void toUserDetails_ShouldReturnNull_WhenTokenHasNoUserId() {
+        String token = jwtUtil.generateToken(new CustomUserDetails(null, "testUser", "password", List.of()));
+
+        assertNull(jwtUtil.toUserDetails(jwtUtil.parseToken(token)));
+    }
+
+    @Test
+    void parseToken_ShouldReuseVerifiedToken() {
+        String token = jwtUtil.generateToken(new CustomUserDetails(42L, "testUser", "password", List.of()));
+
+        assertSame(jwtUtil.parseToken(token), jwtUtil.parseToken(token));
+    }
+
+    @Test
+    void parseToken_ShouldRejectTamperedToken() {
+        String token = jwtUtil.generateToken(new CustomUserDetails(42L, "testUser", "password", List.of()));
+        jwtUtil.parseToken(token);
+
+        String[] parts = token.split("\\.");
+        byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+        // "uid":42} becomes "uid":43}, still valid JSON, so only the signature can reject it
+        payload[payload.length - 2] ^= 1;
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + "." + parts[2];
+
+        assertNotEquals(token, tampered);
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+    }
+
+    @Test
+    void parseToken_ShouldRejectExpiredToken() {
+        ReflectionTestUtils.setField(jwtUtil, "expiration", -1_000L);
+        String token = jwtUtil.generateToken(new CustomUserDetails(42L, "testUser", "password", List.of()));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(token));
+    }
+}
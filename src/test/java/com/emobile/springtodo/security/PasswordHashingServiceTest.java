@@ -0,0 +1,91 @@
+package com.emobile.springtodo.security;
+
+import com.emobile.springtodo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void needsRehash_ShouldDetectCostFactorChange() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 4, 1, 4, Duration.ofSeconds(5));
+
+        String hash = service.encode("secret");
+
+        assertTrue(service.matches("secret", hash));
+        assertFalse(service.needsRehash(hash));
+        assertTrue(service.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        assertEquals(2, service.statistics().completed());
+    }
+
+    @Test
+    void bindTo_ShouldTimeEachOperation() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 4, 1, 4, Duration.ofSeconds(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+
+        service.matches("secret", service.encode("secret"));
+
+        assertEquals(1, registry.get(PasswordHashingService.HASHING_TIMER).tag("operation", "encode").timer().count());
+        assertEquals(1, registry.get(PasswordHashingService.HASHING_TIMER).tag("operation", "matches").timer().count());
+        assertEquals(0, registry.get("todo.auth.password.queued").gauge().value());
+    }
+
+    @Test
+    void encode_ShouldRejectImmediatelyWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        service = new PasswordHashingService(blockingEncoder(release), 4, 1, 1, Duration.ofSeconds(5));
+
+        CompletableFuture<String> running = service.encodeAsync("first");
+        CompletableFuture<String> queued = service.encodeAsync("second");
+
+        long started = System.nanoTime();
+        assertThrows(TooManyRequestsException.class, () -> service.encode("third"));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> service.encodeAsync("fourth").get());
+        assertInstanceOf(TooManyRequestsException.class, rejected.getCause());
+        assertEquals(2, service.statistics().rejected());
+
+        release.countDown();
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+}
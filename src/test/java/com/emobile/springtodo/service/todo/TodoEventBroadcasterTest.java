@@ -0,0 +1,123 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.dto.TodoEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TodoEventBroadcasterTest {
+
+    private static final String CHANNEL = "todo-events";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    private final TodoEventBroadcaster broadcaster = new TodoEventBroadcaster(redisTemplate, listenerContainer,
+            objectMapper, scheduled::add, CHANNEL, Duration.ofMinutes(1), 2);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldListenOnChannel() {
+        broadcaster.afterPropertiesSet();
+
+        verify(listenerContainer).addMessageListener(broadcaster, new ChannelTopic(CHANNEL));
+    }
+
+    @Test
+    void publish_ShouldSendRightAway_OutsideTransaction() throws Exception {
+        TodoEvent event = TodoEvent.changed();
+
+        broadcaster.publish(1L, event);
+
+        verify(redisTemplate).convertAndSend(CHANNEL, "1\nCHANGED\n" + objectMapper.writeValueAsString(event));
+    }
+
+    @Test
+    void publish_ShouldWaitForCommit_InsideTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        broadcaster.publish(1L, TodoEvent.changed());
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), startsWith("1\nCHANGED\n"));
+    }
+
+    @Test
+    void publish_ShouldNotThrow_WhenRedisIsDown() {
+        doThrow(new IllegalStateException("Connection refused")).when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        assertDoesNotThrow(() -> broadcaster.publish(1L, TodoEvent.changed()));
+    }
+
+    @Test
+    void onMessage_ShouldDeliverOnlyToStreamsOfThatUser() {
+        broadcaster.subscribe(1L);
+        drain();
+
+        broadcaster.onMessage(message("2\nCHANGED\n{}"), null);
+        assertTrue(scheduled.isEmpty());
+
+        broadcaster.onMessage(message("1\nCHANGED\n{}"), null);
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    void onMessage_ShouldIgnoreMalformedMessages() {
+        broadcaster.subscribe(1L);
+        drain();
+
+        broadcaster.onMessage(message("1"), null);
+        broadcaster.onMessage(message("1\nCHANGED"), null);
+        broadcaster.onMessage(message("user\nCHANGED\n{}"), null);
+
+        assertTrue(scheduled.isEmpty());
+        assertEquals(1, broadcaster.openStreams());
+    }
+
+    @Test
+    void onMessage_ShouldDropStream_WhenClientFallsBehind() {
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(2L);
+        assertEquals(2, broadcaster.openStreams());
+
+        // the "connected" comment is still buffered, so the second event overflows a buffer of two
+        broadcaster.onMessage(message("1\nCHANGED\n{}"), null);
+        broadcaster.onMessage(message("1\nCHANGED\n{}"), null);
+
+        assertEquals(1, broadcaster.openStreams());
+    }
+
+    private void drain() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TodoExportWriterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 12, 22, 10, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void ndjson_ShouldWriteOneObjectPerLine() throws IOException {
+        String output = export(TodoFileFormat.NDJSON,
+                new TodoResponse(1L, "First", null, false, CREATED_AT, CREATED_AT, 0L),
+                new TodoResponse(2L, "Second", "two", true, CREATED_AT, CREATED_AT, 0L));
+
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("two", objectMapper.readTree(lines[1]).get("description").asText());
+        assertEquals('\n', output.charAt(output.length() - 1));
+    }
+
+    @Test
+    void ndjson_ShouldWriteNothingWithoutTodos() throws IOException {
+        assertEquals("", export(TodoFileFormat.NDJSON));
+    }
+
+    @Test
+    void csv_ShouldQuoteFieldsWithSeparators() throws IOException {
+        String output = export(TodoFileFormat.CSV,
+                new TodoResponse(1L, "Buy milk, bread", "say \"hi\"\nthen leave", true, CREATED_AT, CREATED_AT, 0L));
+
+        assertEquals("""
+                id,title,description,completed,created_at,updated_at
+                1,"Buy milk, bread","say ""hi""
+                then leave",true,2024-12-22T10:00,2024-12-22T10:00
+                """, output);
+    }
+
+    private String export(TodoFileFormat format, TodoResponse... todos) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TodoExportWriter writer = TodoExportWriter.of(format, out, objectMapper)) {
+            for (TodoResponse todo : todos) {
+                writer.write(todo);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
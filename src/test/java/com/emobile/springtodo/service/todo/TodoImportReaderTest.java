@@ -0,0 +1,69 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.exception.UnsupportedFormatException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TodoImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ndjson_ShouldSkipBlankLinesAndReportMalformedOnes() throws IOException {
+        try (TodoImportReader reader = reader(TodoFileFormat.NDJSON, """
+                {"title":"First","id":7}
+
+                {"title":
+                {"title":"Second","description":"two"}
+                """)) {
+            assertEquals("First", reader.next().getTitle());
+            assertEquals(1, reader.line());
+
+            assertThrows(TodoImportReader.MalformedRecordException.class, reader::next);
+            assertEquals(3, reader.line());
+
+            TodoCreateRequest second = reader.next();
+            assertEquals("two", second.getDescription());
+            assertEquals(4, reader.line());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void csv_ShouldReadExportedFileBack() throws IOException {
+        try (TodoImportReader reader = reader(TodoFileFormat.CSV, """
+                id,title,description,completed,created_at,updated_at
+                1,"Buy milk, bread","say ""hi""
+                then leave",true,2024-12-22T10:00,2024-12-22T10:00
+                2,Plain,,false,2024-12-22T10:00,2024-12-22T10:00
+                """)) {
+            TodoCreateRequest first = reader.next();
+            assertEquals("Buy milk, bread", first.getTitle());
+            assertEquals("say \"hi\"\nthen leave", first.getDescription());
+            assertEquals(2, reader.line());
+
+            TodoCreateRequest second = reader.next();
+            assertEquals("Plain", second.getTitle());
+            assertNull(second.getDescription());
+            assertEquals(4, reader.line());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void csv_ShouldRejectHeaderWithoutTitle() {
+        assertThrows(UnsupportedFormatException.class, () -> reader(TodoFileFormat.CSV, "name,description\nx,y\n"));
+    }
+
+    private TodoImportReader reader(TodoFileFormat format, String content) throws IOException {
+        return TodoImportReader.of(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
@@ -0,0 +1,101 @@
+package com.emobile.springtodo.service.todo;
+
+import com.emobile.springtodo.cache.TodoChangeMarker;
+import com.emobile.springtodo.dto.TodoSuggestion;
+import com.emobile.springtodo.repository.todo.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TodoPrefixIndexTest {
+
+    private final TodoRepository todoRepository = mock(TodoRepository.class);
+    private final TodoChangeMarker changeMarker = mock(TodoChangeMarker.class);
+
+    private TodoPrefixIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(changeMarker.current(1L)).thenReturn("m1");
+        doAnswer(invocation -> {
+            BiConsumer<Long, String> action = invocation.getArgument(1);
+            action.accept(1L, "Buy milk");
+            action.accept(2L, "Build the shed");
+            action.accept(3L, "Call mum about milk");
+            return null;
+        }).when(todoRepository).forEachTodoTitle(eq(1L), any(BiConsumer.class));
+        index = new TodoPrefixIndex(todoRepository, changeMarker, Runnable::run, 1_000, Duration.ofMinutes(30),
+                Duration.ofMinutes(10));
+    }
+
+    @Test
+    void suggest_ShouldMatchWordPrefixesIgnoringCase() {
+        List<TodoSuggestion> suggestions = index.suggest(1L, "BU", 10);
+
+        assertEquals(List.of(2L, 1L), suggestions.stream().map(TodoSuggestion::id).toList());
+    }
+
+    @Test
+    void suggest_ShouldRequireEveryWord() {
+        List<TodoSuggestion> suggestions = index.suggest(1L, "milk ca", 10);
+
+        assertEquals(List.of(new TodoSuggestion(3L, "Call mum about milk")), suggestions);
+    }
+
+    @Test
+    void suggest_ShouldStopAtLimit() {
+        assertEquals(1, index.suggest(1L, "b", 1).size());
+        assertTrue(index.suggest(1L, " - ", 10).isEmpty());
+    }
+
+    @Test
+    void put_ShouldPatchLoadedIndexWithoutReloading() {
+        index.suggest(1L, "milk", 10);
+
+        index.put(1L, 1L, "Buy bread");
+
+        assertEquals(List.of(3L), index.suggest(1L, "milk", 10).stream().map(TodoSuggestion::id).toList());
+        assertEquals(List.of(1L), index.suggest(1L, "bread", 10).stream().map(TodoSuggestion::id).toList());
+        verify(todoRepository, times(1)).forEachTodoTitle(eq(1L), any());
+    }
+
+    @Test
+    void suggest_ShouldAnswerFromDatabase_WhileIndexLoads() {
+        List<Runnable> loads = new ArrayList<>();
+        TodoPrefixIndex loading = new TodoPrefixIndex(todoRepository, changeMarker, loads::add, 1_000,
+                Duration.ofMinutes(30), Duration.ofMinutes(10));
+        List<TodoSuggestion> fromDatabase = List.of(new TodoSuggestion(1L, "Buy milk"));
+        when(todoRepository.suggestTodos(1L, List.of("milk"), 10)).thenReturn(fromDatabase);
+
+        assertEquals(fromDatabase, loading.suggest(1L, "Milk", 10));
+        verify(todoRepository, never()).forEachTodoTitle(eq(1L), any());
+
+        loads.forEach(Runnable::run);
+
+        assertEquals(2, loading.suggest(1L, "milk", 10).size());
+        verify(todoRepository, times(1)).suggestTodos(eq(1L), any(), anyInt());
+        verify(todoRepository, times(1)).forEachTodoTitle(eq(1L), any());
+    }
+
+    @Test
+    void suggest_ShouldReload_WhenChangeMarkerMovedOn() {
+        index.suggest(1L, "milk", 10);
+        when(changeMarker.current(1L)).thenReturn("m2");
+
+        index.suggest(1L, "milk", 10);
+
+        verify(todoRepository, times(2)).forEachTodoTitle(eq(1L), any());
+    }
+}
@@ -1,24 +1,53 @@
 package com.emobile.springtodo.service.todo;
 
+import com.emobile.springtodo.cache.TodoChangeMarker;
 import com.emobile.springtodo.entity.User;
+import com.emobile.springtodo.dto.TodoBatchItemResult;
+import com.emobile.springtodo.dto.TodoBatchResponse;
+import com.emobile.springtodo.dto.TodoChange;
+import com.emobile.springtodo.dto.TodoChangesResponse;
 import com.emobile.springtodo.dto.TodoCreateRequest;
+import com.emobile.springtodo.dto.TodoCursor;
+import com.emobile.springtodo.dto.TodoEvent;
+import com.emobile.springtodo.dto.TodoFileFormat;
+import com.emobile.springtodo.dto.TodoImportResponse;
 import com.emobile.springtodo.dto.TodoResponse;
+import com.emobile.springtodo.dto.TodoSearchCursor;
+import com.emobile.springtodo.dto.TodoSearchHit;
+import com.emobile.springtodo.dto.TodoSearchResponse;
+import com.emobile.springtodo.dto.TodoTombstone;
 import com.emobile.springtodo.dto.TodoUpdateRequest;
+import com.emobile.springtodo.dto.TodoUpdateResult;
+import com.emobile.springtodo.dto.TodoWatermark;
+import com.emobile.springtodo.exception.BatchSizeExceededException;
+import com.emobile.springtodo.exception.InvalidCursorException;
+import com.emobile.springtodo.exception.InvalidPageSizeException;
 import com.emobile.springtodo.exception.TodoNotFoundException;
+import com.emobile.springtodo.exception.TodoVersionConflictException;
 import com.emobile.springtodo.repository.UserRepository;
 import com.emobile.springtodo.repository.todo.TodoRepository;
 import com.emobile.springtodo.security.CustomUserDetails;
 import com.emobile.springtodo.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +63,24 @@ class TodoServiceImplTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TodoCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private TodoChangeMarker changeMarker;
+
+    @Mock
+    private TodoEventBroadcaster eventBroadcaster;
+
+    @Mock
+    private TodoPrefixIndex prefixIndex;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private TodoServiceImpl todoService;
 
@@ -44,38 +91,126 @@ class TodoServiceImplTest {
     void setUp() {
         userDetails = new CustomUserDetails(1L, "testUser", "password", List.of());
         principal = new UsernamePasswordAuthenticationToken(userDetails, null);
+        ReflectionTestUtils.setField(todoService, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(todoService, "maxReportedImportErrors", 1);
+        ReflectionTestUtils.setField(todoService, "maxPageSize", 100);
     }
 
     @Test
     void saveTodo_ShouldCallRepository() {
         TodoCreateRequest request = new TodoCreateRequest("Test Task", "dsfdfsd");
-        doNothing().when(todoRepository).saveTodo(request, 1L);
+        LocalDateTime now = LocalDateTime.now();
+        TodoResponse saved = new TodoResponse(5L, "Test Task", "dsfdfsd", false, now, now, 0L);
+        when(todoRepository.saveTodo(request, 1L)).thenReturn(saved);
 
         todoService.saveTodo(request, principal);
 
         verify(todoRepository, times(1)).saveTodo(request, 1L);
+        verify(cacheInvalidator, times(1)).putTodo(1L, saved);
+        verify(cacheInvalidator, times(1)).addToUserLists(1L, saved);
+        verify(cacheInvalidator, never()).evictUserLists(1L);
+        verify(eventBroadcaster, times(1)).publish(1L, TodoEvent.created(saved));
+        verify(prefixIndex, times(1)).put(1L, 5L, "Test Task");
     }
 
     @Test
     void updateTodo_ShouldUpdateAndReturnResponse() {
         TodoUpdateRequest request = new TodoUpdateRequest(1L, "Updated Task","sdfsd", true);
-        when(todoRepository.updateTodo(request, 1L)).thenReturn(1);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TodoResponse persisted = new TodoResponse(1L, "Updated Task", "sdfsd", true, createdAt, createdAt.plusDays(1), 1L);
+        when(todoRepository.updateTodo(request, null, 1L)).thenReturn(Optional.of(new TodoUpdateResult(persisted, false)));
 
         TodoResponse response = todoService.updateTodo(request, principal);
 
-        assertNotNull(response);
-        assertEquals(request.getId(), response.getId());
-        assertEquals(request.getTitle(), response.getTitle());
-        assertEquals(request.isCompleted(), response.isCompleted());
-        verify(todoRepository, times(1)).updateTodo(request, 1L);
+        assertSame(persisted, response);
+        assertEquals(createdAt, response.getCreatedAt());
+        verify(todoRepository, times(1)).updateTodo(request, null, 1L);
+        verify(cacheInvalidator, times(1)).putTodo(1L, persisted);
+        verify(cacheInvalidator, times(1)).patchUserLists(1L, persisted);
+        verify(eventBroadcaster, times(1)).publish(1L, new TodoEvent(TodoEvent.Type.COMPLETED, persisted));
+    }
+
+    @Test
+    void updateTodo_ShouldPublishUpdated_WhenTodoWasAlreadyCompleted() {
+        TodoUpdateRequest request = new TodoUpdateRequest(1L, "Renamed Task", "sdfsd", true);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TodoResponse persisted = new TodoResponse(1L, "Renamed Task", "sdfsd", true, createdAt, createdAt.plusDays(1), 2L);
+        when(todoRepository.updateTodo(request, null, 1L)).thenReturn(Optional.of(new TodoUpdateResult(persisted, true)));
+
+        todoService.updateTodo(request, principal);
+
+        verify(eventBroadcaster, times(1)).publish(1L, new TodoEvent(TodoEvent.Type.UPDATED, persisted));
     }
 
     @Test
     void updateTodo_ShouldThrowException_WhenTodoNotFound() {
         TodoUpdateRequest request = new TodoUpdateRequest(1L, "Updated Task","sdfsd", true);
-        when(todoRepository.updateTodo(request, 1L)).thenReturn(0);
+        when(todoRepository.updateTodo(request, null, 1L)).thenReturn(Optional.empty());
 
         assertThrows(TodoNotFoundException.class, () -> todoService.updateTodo(request, principal));
+        verifyNoInteractions(cacheInvalidator);
+    }
+
+    @Test
+    void updateTodo_ShouldThrowConflict_WhenVersionIsStale() {
+        TodoUpdateRequest request = new TodoUpdateRequest(1L, "Updated Task","sdfsd", true);
+        when(todoRepository.updateTodo(request, 2L, 1L)).thenReturn(Optional.empty());
+        when(todoRepository.findTodoVersion(1L, 1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(TodoVersionConflictException.class, () -> todoService.updateTodo(request, 2L, principal));
+        verifyNoInteractions(cacheInvalidator);
+    }
+
+    @Test
+    void updateTodo_ShouldThrowNotFound_WhenConditionalTargetIsMissing() {
+        TodoUpdateRequest request = new TodoUpdateRequest(1L, "Updated Task","sdfsd", true);
+        when(todoRepository.updateTodo(request, 2L, 1L)).thenReturn(Optional.empty());
+        when(todoRepository.findTodoVersion(1L, 1L)).thenReturn(Optional.empty());
+
+        assertThrows(TodoNotFoundException.class, () -> todoService.updateTodo(request, 2L, principal));
+    }
+
+    @Test
+    void saveTodos_ShouldInsertValidItemsAndReportInvalidOnes() {
+        TodoCreateRequest first = new TodoCreateRequest("First", null);
+        TodoCreateRequest invalid = new TodoCreateRequest("", null);
+        TodoCreateRequest second = new TodoCreateRequest("Second", null);
+        when(todoRepository.saveTodos(List.of(first, second), 1L)).thenReturn(List.of(10L, 11L));
+
+        TodoBatchResponse response = todoService.saveTodos(List.of(first, invalid, second), principal);
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertEquals(10L, response.getResults().get(0).getId());
+        assertEquals(TodoBatchItemResult.Status.INVALID, response.getResults().get(1).getStatus());
+        assertEquals(11L, response.getResults().get(2).getId());
+        verify(cacheInvalidator, times(1)).evictUserLists(1L);
+        verify(eventBroadcaster, times(1)).publish(1L, TodoEvent.changed());
+    }
+
+    @Test
+    void updateTodos_ShouldReportNotFoundItems() {
+        TodoUpdateRequest found = new TodoUpdateRequest(1L, "Found", null, true);
+        TodoUpdateRequest missing = new TodoUpdateRequest(2L, "Missing", null, true);
+        when(todoRepository.updateTodos(List.of(found, missing), 1L)).thenReturn(new int[]{1, 0});
+
+        TodoBatchResponse response = todoService.updateTodos(List.of(found, missing), principal);
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(TodoBatchItemResult.Status.UPDATED, response.getResults().get(0).getStatus());
+        assertEquals(TodoBatchItemResult.Status.NOT_FOUND, response.getResults().get(1).getStatus());
+        verify(cacheInvalidator, times(1)).evictTodos(1L, List.of(1L));
+        verify(cacheInvalidator, times(1)).evictUserLists(1L);
+        verify(eventBroadcaster, times(1)).publish(1L, TodoEvent.changed());
+    }
+
+    @Test
+    void saveTodos_ShouldRejectBatchOverMaxSize() {
+        List<TodoCreateRequest> requests = List.of(new TodoCreateRequest("1", null), new TodoCreateRequest("2", null),
+                new TodoCreateRequest("3", null), new TodoCreateRequest("4", null));
+
+        assertThrows(BatchSizeExceededException.class, () -> todoService.saveTodos(requests, principal));
+        verifyNoInteractions(todoRepository);
     }
 
     @Test
@@ -88,6 +223,161 @@ class TodoServiceImplTest {
         verify(todoRepository, times(1)).allTodosByUserIdWithPagination(1L, 0, 10);
     }
 
+    @Test
+    void allTodosByPrincipalWithCursor_ShouldStartFromFirstPage_WhenCursorIsBlank() {
+        when(todoRepository.allTodosByUserIdAfterCursor(1L, null, 10)).thenReturn(List.of(getTodoResponse()));
+
+        List<TodoResponse> todos = todoService.allTodosByPrincipalWithCursor(principal, "", 10);
+
+        assertEquals(1, todos.size());
+        verify(todoRepository, times(1)).allTodosByUserIdAfterCursor(1L, null, 10);
+    }
+
+    @Test
+    void allTodosByPrincipalWithCursor_ShouldSeekAfterDecodedCursor() {
+        TodoResponse last = getTodoResponse();
+        TodoCursor cursor = TodoCursor.of(last);
+        when(todoRepository.allTodosByUserIdAfterCursor(1L, cursor, 10)).thenReturn(List.of());
+
+        List<TodoResponse> todos = todoService.allTodosByPrincipalWithCursor(principal, cursor.encode(), 10);
+
+        assertTrue(todos.isEmpty());
+        verify(todoRepository, times(1)).allTodosByUserIdAfterCursor(1L, cursor, 10);
+    }
+
+    @Test
+    void allTodosByPrincipalWithCursor_ShouldThrowException_WhenCursorIsMalformed() {
+        assertThrows(InvalidCursorException.class,
+                () -> todoService.allTodosByPrincipalWithCursor(principal, "not-a-cursor", 10));
+    }
+
+    @Test
+    void allTodosByPrincipalWithCursor_ShouldThrowException_WhenSizeIsOutOfRange() {
+        assertThrows(InvalidPageSizeException.class, () -> todoService.allTodosByPrincipalWithCursor(principal, "", 0));
+        assertThrows(InvalidPageSizeException.class, () -> todoService.allTodosByPrincipalWithCursor(principal, "", -5));
+        assertThrows(InvalidPageSizeException.class, () -> todoService.allTodosByPrincipalWithCursor(principal, "", 101));
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void changesSince_ShouldReturnEverythingAndRecordMarker_WhenSinceIsAbsent() {
+        TodoResponse todo = getTodoResponse();
+        when(changeMarker.current(1L)).thenReturn("m1");
+        when(todoRepository.todosChangedAfter(1L, 0, 0, 10)).thenReturn(List.of(new TodoChange(todo, 42L, true)));
+        when(todoRepository.tombstonesAfter(1L, 0, 0, 10)).thenReturn(List.of());
+
+        TodoChangesResponse response = todoService.changesSince(principal, null, 10);
+
+        assertEquals(List.of(todo), response.getChanged());
+        assertFalse(response.isHasMore());
+        TodoWatermark next = TodoWatermark.decode(response.getWatermark());
+        assertEquals(42L, next.changedXid());
+        assertEquals(todo.getId(), next.changedId());
+        assertEquals("m1", next.marker());
+    }
+
+    @Test
+    void changesSince_ShouldSkipDatabase_WhenMarkerIsUnchanged() {
+        String since = new TodoWatermark(42L, 1L, 0, 0, "m1").encode();
+        when(changeMarker.current(1L)).thenReturn("m1");
+
+        TodoChangesResponse response = todoService.changesSince(principal, since, 10);
+
+        assertTrue(response.getChanged().isEmpty());
+        assertTrue(response.getDeleted().isEmpty());
+        assertEquals(since, response.getWatermark());
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void changesSince_ShouldNotRecordMarker_WhilePaging() {
+        when(changeMarker.current(1L)).thenReturn("m2");
+        when(todoRepository.todosChangedAfter(eq(1L), anyLong(), anyLong(), eq(1)))
+                .thenReturn(List.of(new TodoChange(getTodoResponse(), 42L, true)));
+        when(todoRepository.tombstonesAfter(eq(1L), anyLong(), anyLong(), eq(1)))
+                .thenReturn(List.of(new TodoTombstone(7L, 43L, true)));
+
+        TodoChangesResponse response = todoService.changesSince(principal, "", 1);
+
+        assertTrue(response.isHasMore());
+        assertEquals(List.of(7L), response.getDeleted());
+        TodoWatermark next = TodoWatermark.decode(response.getWatermark());
+        assertEquals(43L, next.deletedXid());
+        assertEquals(7L, next.deletedId());
+        assertNull(next.marker());
+    }
+
+    @Test
+    void changesSince_ShouldStopBeforeUnsettledChanges() {
+        TodoResponse settled = getTodoResponse();
+        TodoResponse inFlight = new TodoResponse(2L, "Second", "Description", false,
+                settled.getCreatedAt(), settled.getUpdatedAt(), 0L);
+        when(changeMarker.current(1L)).thenReturn("m3");
+        when(todoRepository.todosChangedAfter(1L, 0, 0, 2)).thenReturn(List.of(
+                new TodoChange(settled, 42L, true), new TodoChange(inFlight, 50L, false)));
+        when(todoRepository.tombstonesAfter(1L, 0, 0, 2)).thenReturn(List.of(new TodoTombstone(7L, 51L, false)));
+
+        TodoChangesResponse response = todoService.changesSince(principal, null, 2);
+
+        assertEquals(List.of(settled), response.getChanged());
+        assertTrue(response.getDeleted().isEmpty());
+        assertFalse(response.isHasMore());
+        TodoWatermark next = TodoWatermark.decode(response.getWatermark());
+        assertEquals(42L, next.changedXid());
+        assertEquals(settled.getId(), next.changedId());
+        assertEquals(0L, next.deletedXid());
+        assertNull(next.marker());
+    }
+
+    @Test
+    void changesSince_ShouldThrowException_WhenSizeIsOutOfRange() {
+        assertThrows(InvalidPageSizeException.class, () -> todoService.changesSince(principal, null, 0));
+        assertThrows(InvalidPageSizeException.class, () -> todoService.changesSince(principal, null, 101));
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void changesSince_ShouldThrowException_WhenWatermarkIsMalformed() {
+        assertThrows(InvalidCursorException.class, () -> todoService.changesSince(principal, "not-a-watermark", 10));
+    }
+
+    @Test
+    void searchTodos_ShouldReturnCursorOfLastHit_WhenPageIsFull() {
+        TodoResponse todo = getTodoResponse();
+        when(todoRepository.searchTodos(1L, "task", null, 1)).thenReturn(List.of(new TodoSearchHit(todo, 0.25f)));
+
+        TodoSearchResponse response = todoService.searchTodos(principal, "task", null, 1);
+
+        assertEquals(List.of(todo), response.getTodos());
+        assertEquals(new TodoSearchCursor(0.25f, todo.getId()), TodoSearchCursor.decode(response.getNextCursor()));
+    }
+
+    @Test
+    void searchTodos_ShouldSeekAfterDecodedCursor() {
+        TodoSearchCursor cursor = new TodoSearchCursor(0.25f, 7L);
+        when(todoRepository.searchTodos(1L, "task", cursor, 10)).thenReturn(List.of());
+
+        TodoSearchResponse response = todoService.searchTodos(principal, "task", cursor.encode(), 10);
+
+        assertTrue(response.getTodos().isEmpty());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void searchTodos_ShouldSkipDatabase_WhenQueryIsBlank() {
+        TodoSearchResponse response = todoService.searchTodos(principal, "  ", null, 10);
+
+        assertTrue(response.getTodos().isEmpty());
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void searchTodos_ShouldThrowException_WhenSizeIsOutOfRange() {
+        assertThrows(InvalidPageSizeException.class, () -> todoService.searchTodos(principal, "task", null, -1));
+        assertThrows(InvalidPageSizeException.class, () -> todoService.searchTodos(principal, "task", null, 101));
+        verifyNoInteractions(todoRepository);
+    }
+
     @Test
     void allTodosCompletedByPrincipal_ShouldReturnCompletedTodos() {
         when(todoRepository.allTodosCompletedByUserId(1L)).thenReturn(List.of(getTodoResponse()));
@@ -127,8 +417,34 @@ class TodoServiceImplTest {
     }
 
     private TodoResponse getTodoResponse() {
-        return new TodoResponse(1L, "Updated Todo", "description", true, LocalDateTime.now(), LocalDateTime.now());
+        return new TodoResponse(1L, "Updated Todo", "description", true, LocalDateTime.now(), LocalDateTime.now(), 0L);
 
     }
 
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importTodos_ShouldCopyOnlyValidRowsAndCountRejected() throws IOException {
+        List<String> copied = new ArrayList<>();
+        when(todoRepository.copyTodos(any(Iterator.class), eq(1L))).thenAnswer(invocation -> {
+            Iterator<TodoCreateRequest> rows = invocation.getArgument(0);
+            rows.forEachRemaining(row -> copied.add(row.getTitle()));
+            return (long) copied.size();
+        });
+        String body = """
+                {"title":"First"}
+                {"title":""}
+                not json
+                {"title":"Second"}
+                """;
+
+        TodoImportResponse response = todoService.importTodos(principal, TodoFileFormat.NDJSON,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("First", "Second"), copied);
+        assertEquals(2, response.getImported());
+        assertEquals(2, response.getRejected());
+        assertEquals(List.of("line 2: Title cannot be blank"), response.getErrors());
+        verify(cacheInvalidator).evictUserLists(1L);
+    }
+}
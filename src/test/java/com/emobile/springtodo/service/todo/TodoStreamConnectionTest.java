@@ -0,0 +1,56 @@
+package com.emobile.springtodo.service.todo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TodoStreamConnectionTest {
+
+    private final SseEmitter emitter = mock(SseEmitter.class);
+    private final List<TodoStreamConnection> removed = new ArrayList<>();
+
+    @Test
+    void offer_ShouldSendQueuedEvents() throws IOException {
+        TodoStreamConnection connection = new TodoStreamConnection(emitter, 4, Runnable::run, removed::add);
+
+        assertTrue(connection.offer(SseEmitter.event().name("created").data("{}")));
+        assertTrue(connection.offer(SseEmitter.event().comment("heartbeat")));
+
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        assertFalse(connection.isClosed());
+    }
+
+    @Test
+    void offer_ShouldDisconnectClient_WhenBufferOverflows() {
+        List<Runnable> stalled = new ArrayList<>();
+        TodoStreamConnection connection = new TodoStreamConnection(emitter, 2, stalled::add, removed::add);
+
+        assertTrue(connection.offer(SseEmitter.event().comment("1")));
+        assertTrue(connection.offer(SseEmitter.event().comment("2")));
+        assertFalse(connection.offer(SseEmitter.event().comment("3")));
+
+        assertTrue(connection.isClosed());
+        assertEquals(List.of(connection), removed);
+        verify(emitter).complete();
+        assertEquals(1, stalled.size());
+    }
+
+    @Test
+    void offer_ShouldCloseConnection_WhenSendFails() throws IOException {
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        TodoStreamConnection connection = new TodoStreamConnection(emitter, 4, Runnable::run, removed::add);
+
+        connection.offer(SseEmitter.event().comment("heartbeat"));
+
+        assertTrue(connection.isClosed());
+        assertFalse(connection.offer(SseEmitter.event().comment("heartbeat")));
+        assertEquals(List.of(connection), removed);
+    }
+}
@@ -0,0 +1,50 @@
+package com.emobile.springtodo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Wall-clock timing for the {@code -Dbenchmark} tests, which measure whole queries or requests against real
+ * containers where JMH would add little. Every sample set is preceded by a fifth as many unrecorded warm-up runs.
+ */
+public final class Latency {
+
+    private Latency() {
+    }
+
+    public static long timed(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Nanoseconds of {@code iterations} runs of {@code action}, sorted ascending.
+     */
+    public static long[] sample(int iterations, Runnable action) {
+        for (int i = 0; i < iterations / 5; i++) {
+            action.run();
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = timed(action);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    public static long median(int iterations, Runnable action) {
+        return percentile(sample(iterations, action), 50);
+    }
+
+    /**
+     * Nearest-rank percentile of {@code sorted}, e.g. {@code 99} for p99.
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    public static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+}
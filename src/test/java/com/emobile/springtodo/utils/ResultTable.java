@@ -0,0 +1,42 @@
+package com.emobile.springtodo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plain-text table that the {@code -Dbenchmark} tests print their figures in: the first column is left-aligned,
+ * the others right-aligned, each as wide as its widest cell.
+ */
+public class ResultTable {
+
+    private final List<String[]> rows = new ArrayList<>();
+
+    public ResultTable(String... header) {
+        rows.add(header);
+    }
+
+    public ResultTable row(Object... cells) {
+        rows.add(Arrays.stream(cells).map(String::valueOf).toArray(String[]::new));
+        return this;
+    }
+
+    public void print() {
+        int columns = rows.stream().mapToInt(row -> row.length).max().orElse(0);
+        int[] widths = new int[columns];
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                widths[i] = Math.max(widths[i], row[i].length());
+            }
+        }
+        StringBuilder out = new StringBuilder(System.lineSeparator());
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                String format = i == 0 ? "%-" + widths[i] + "s" : "  %" + widths[i] + "s";
+                out.append(format.formatted(row[i]));
+            }
+            out.append(System.lineSeparator());
+        }
+        System.out.print(out);
+    }
+}